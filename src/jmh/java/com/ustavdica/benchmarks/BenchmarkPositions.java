@@ -0,0 +1,157 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fixed, seeded sets of positions the benchmarks run on.
+ * <p>
+ * Positions are taken from random games played with a fixed seed, so every run
+ * measures exactly the same positions. None of them is terminal.
+ */
+public final class BenchmarkPositions {
+
+    public static final int POSITIONS_PER_SET = 64;
+
+    private static final long SEED = 0x4A4D48L;
+    private static final int MAX_GAMES = 1_000_000;
+
+    public enum GamePhase {
+        /** 2 to 8 stones on the board */
+        EARLY,
+        /** 16 to 24 stones on the board */
+        MID,
+        /** 36 to 44 stones on the board */
+        LATE,
+        /** No free square around the last move, so the non-standard (island) moves apply */
+        ISLAND
+    }
+
+    /**
+     * A position with the moves that answer it correctly.
+     *
+     * @param state     the position, PINK to move
+     * @param solutions the correct moves as a bitmask
+     */
+    public record TacticalPosition(State state, long solutions) {
+
+        /**
+         * Checks if a move answers the position correctly.
+         *
+         * @param move the chosen move, or -1 if there was none
+         * @return true if the move is one of the solutions
+         */
+        public boolean isSolvedBy(int move) {
+            return move >= 0 && (solutions & 1L << move) != 0;
+        }
+    }
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Creates the position set of a game phase.
+     *
+     * @param phase the game phase to create the positions for
+     * @return {@link #POSITIONS_PER_SET} non-terminal positions, the same on every call
+     */
+    public static State[] create(GamePhase phase) {
+        StateHandler stateHandler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(SEED + phase.ordinal());
+
+        State[] positions = new State[POSITIONS_PER_SET];
+        int count = 0;
+
+        for (int game = 0; game < MAX_GAMES && count < positions.length; game++) {
+            State state = new State(Player.BLUE);
+
+            // Every game contributes at most one position, at a random stone count of the phase
+            int targetStones = switch (phase) {
+                case EARLY -> 2 + random.nextInt(7);
+                case MID -> 16 + random.nextInt(9);
+                case LATE -> 36 + random.nextInt(9);
+                case ISLAND -> -1;
+            };
+
+            while (!stateHandler.isTerminal(state)) {
+                int stones = Long.bitCount(state.getCombinedBitboard());
+                boolean matches = phase == GamePhase.ISLAND ? isIsland(state) : stones == targetStones;
+                if (matches) {
+                    positions[count++] = new State(state);
+                    break;
+                }
+                stateHandler.performRandomMove(state, random);
+            }
+        }
+
+        if (count < positions.length) {
+            throw new IllegalStateException("Found only " + count + " positions for " + phase);
+        }
+        return positions;
+    }
+
+    /**
+     * Creates a set of tactical positions where PINK is to move and must either win right
+     * away or block BLUE's only winning square.
+     *
+     * @return {@link #POSITIONS_PER_SET} positions with their solutions, the same on every call
+     */
+    public static TacticalPosition[] createTactical() {
+        StateHandler stateHandler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(SEED - 1);
+        long boardMask = (1L << 49) - 1;
+
+        TacticalPosition[] positions = new TacticalPosition[POSITIONS_PER_SET];
+        int count = 0;
+
+        for (int game = 0; game < MAX_GAMES && count < positions.length; game++) {
+            State state = new State(Player.BLUE);
+
+            // Every game contributes at most one position, so the set is spread over many games
+            while (!stateHandler.isTerminal(state)) {
+                if (state.getNextPlayer() == Player.PINK) {
+                    long validMoveMask = stateHandler.getValidMoveMask(state);
+                    long emptySquares = ~state.getCombinedBitboard() & boardMask;
+                    long wins = stateHandler.getWinningSquares(state.getBitboard(Player.PINK), emptySquares) & validMoveMask;
+                    long threats = stateHandler.getWinningSquares(state.getBitboard(Player.BLUE), emptySquares);
+
+                    long solutions = wins != 0 ? wins : Long.bitCount(threats) == 1 ? threats & validMoveMask : 0;
+                    if (solutions != 0) {
+                        positions[count++] = new TacticalPosition(new State(state), solutions);
+                        break;
+                    }
+                }
+                stateHandler.performRandomMove(state, random);
+            }
+        }
+
+        if (count < positions.length) {
+            throw new IllegalStateException("Found only " + count + " tactical positions");
+        }
+        return positions;
+    }
+
+    /**
+     * Checks if every square around the last move is taken, which forces a non-standard move.
+     */
+    private static boolean isIsland(State state) {
+        long combined = state.getCombinedBitboard();
+        return combined != 0 && (neighbours(state.getLastMove()) & ~combined) == 0;
+    }
+
+    private static long neighbours(int square) {
+        int row = square / 7;
+        int column = square % 7;
+
+        long neighbours = 0L;
+        for (int r = Math.max(0, row - 1); r <= Math.min(6, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(6, column + 1); c++) {
+                if (r != row || c != column) neighbours |= 1L << (r * 7 + c);
+            }
+        }
+        return neighbours;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterations and playouts per second of leaf-parallel simulations by playouts per leaf.
+ * <p>
+ * Every iteration runs {@code playouts} playouts from the expanded leaf. The score is
+ * iterations per second, and the secondary {@code playouts} result is the number of
+ * playouts per second, comparable across all {@code playouts} values. The playouts are
+ * submitted to virtual threads or a ForkJoinPool. {@code BatchedLeafParallelBenchmark}
+ * plays them lane-wise with the vector batch engine instead, in a build with
+ * {@code mvn -P jmh,vector package}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeafParallelBenchmark {
+
+    private static final int ITERATIONS = 5000;
+
+    public enum PlayoutExecutor {
+        VIRTUAL_THREADS,
+        FORK_JOIN
+    }
+
+    @Param({"VIRTUAL_THREADS", "FORK_JOIN"})
+    public PlayoutExecutor playoutExecutor;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int playouts;
+
+    private State[] positions;
+    private ExecutorService executor;
+    private MonteCarloTreeSearch mcts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.create(GamePhase.EARLY);
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+
+        executor = switch (playoutExecutor) {
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case FORK_JOIN -> new ForkJoinPool();
+        };
+        mcts.setLeafParallelism(playouts, executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int findBestMove(PlayoutCounters counters) {
+        State position = positions[next];
+        next = (next + 1) % positions.length;
+
+        int move = mcts.findBestMove(position, ITERATIONS);
+        counters.record(mcts);
+        return move;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterations per second of the shared-tree parallel search by thread count.
+ * <p>
+ * Every invocation searches the next position of the set from scratch with a fixed
+ * number of iterations, shared by all threads. The speedup over one thread is the
+ * ratio of the scores.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    private static final int ITERATIONS = 20000;
+
+    @Param({"EARLY", "MID"})
+    public GamePhase phase;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private State[] positions;
+    private ExecutorService executor;
+    private MonteCarloTreeSearch mcts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.create(phase);
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+        mcts.setEndgameThreshold(0);
+
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads - 1);
+            mcts.setThreads(threads, executor);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int findBestMove() {
+        State position = positions[next];
+        next = (next + 1) % positions.length;
+        return mcts.findBestMove(position, ITERATIONS);
+    }
+}
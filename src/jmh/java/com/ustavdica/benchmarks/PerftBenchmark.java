@@ -0,0 +1,65 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.features.state.Perft;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a perft count from the empty board, on a single thread and split over a ForkJoinPool.
+ * <p>
+ * The leaf counts of every depth are checked by {@code PerftTest}, e.g. 52552 at depth 5
+ * and 1350648 at depth 7, so leaf positions per second are the count divided by the score.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({"5", "6", "7"})
+    public int depth;
+
+    private ForkJoinPool pool;
+    private Perft perft;
+    private State state;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool();
+        perft = new Perft(StateHandler.getInstance(), pool);
+        state = new State(Player.BLUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long count() {
+        return perft.count(state, depth);
+    }
+
+    @Benchmark
+    public long countParallel() {
+        return perft.countParallel(state, depth);
+    }
+}
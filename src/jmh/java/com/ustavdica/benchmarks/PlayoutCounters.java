@@ -0,0 +1,34 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Playouts run by the searches of a benchmark, reported as playouts per second next to the score.
+ * <p>
+ * Searches with several playouts per leaf run more playouts than iterations, and fewer
+ * once part of the tree is proven, so the count is taken from the search statistics.
+ */
+@AuxCounters(AuxCounters.Type.OPS)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class PlayoutCounters {
+
+    public long playouts;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        playouts = 0;
+    }
+
+    /**
+     * Adds the playouts of the search that has just ended.
+     *
+     * @param mcts the search to take the playout count from
+     */
+    public void record(MonteCarloTreeSearch mcts) {
+        playouts += mcts.getSearchStats().getPlayouts();
+    }
+}
@@ -0,0 +1,101 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.TacticalPosition;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.PlayoutPolicy;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playing strength per unit of wall time of the playout policies.
+ * <p>
+ * Every invocation searches the next tactical position of the set with a fixed time
+ * budget, so the score is about the budget and the result is the secondary
+ * {@code solvedPercent}: the share of searches that played a winning or the only
+ * blocking move. Playouts per second of the policies are measured by
+ * {@code StateHandlerBenchmark}. An iteration is long enough to search the whole set
+ * with the largest budget.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 13)
+@Measurement(iterations = 3, time = 13)
+@Fork(1)
+public class PlayoutPolicyBenchmark {
+
+    @Param({"UNIFORM", "TACTICAL"})
+    public PlayoutPolicy policy;
+
+    @Param({"10", "50", "200"})
+    public int budgetMillis;
+
+    private TacticalPosition[] positions;
+    private MonteCarloTreeSearch mcts;
+    private Duration timeBudget;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.createTactical();
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+        mcts.setPlayoutPolicy(policy);
+
+        // Late positions would be solved exactly, which hides the difference between the policies
+        mcts.setEndgameThreshold(0);
+
+        timeBudget = Duration.ofMillis(budgetMillis);
+    }
+
+    @Benchmark
+    public int findBestMove(SolvedCounters counters) {
+        TacticalPosition position = positions[next];
+        next = (next + 1) % positions.length;
+
+        int move = mcts.findBestMove(position.state(), timeBudget);
+        counters.record(position.isSolvedBy(move));
+        return move;
+    }
+
+    /**
+     * Share of correctly answered positions, reported next to the score.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @org.openjdk.jmh.annotations.State(Scope.Thread)
+    public static class SolvedCounters {
+
+        private int searches;
+        private int solved;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            searches = 0;
+            solved = 0;
+        }
+
+        void record(boolean isSolved) {
+            searches++;
+            if (isSolved) solved++;
+        }
+
+        public double solvedPercent() {
+            return searches == 0 ? 0 : 100.0 * solved / searches;
+        }
+    }
+}
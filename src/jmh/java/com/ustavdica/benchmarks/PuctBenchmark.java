@@ -0,0 +1,84 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.search.CentralityPrior;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.OpenLinePrior;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterations per second of UCT against PUCT with each prior, with and without progressive widening.
+ * <p>
+ * Every invocation searches the next position of the set from scratch, so the score
+ * shows the cost of scoring the moves by their prior and the savings of expanding
+ * fewer children. Widening only applies together with a prior.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PuctBenchmark {
+
+    private static final int ITERATIONS = 10000;
+    private static final double EXPLORATION = 4;
+
+    public enum Prior {
+        NONE,
+        CENTRALITY,
+        OPEN_LINES
+    }
+
+    @Param({"EARLY", "MID"})
+    public GamePhase phase;
+
+    @Param({"NONE", "CENTRALITY", "OPEN_LINES"})
+    public Prior prior;
+
+    @Param({"false", "true"})
+    public boolean widening;
+
+    private State[] positions;
+    private MonteCarloTreeSearch mcts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.create(phase);
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+        mcts.setEndgameThreshold(0);
+
+        switch (prior) {
+            case NONE -> { }
+            case CENTRALITY -> mcts.setPuct(new CentralityPrior(), EXPLORATION);
+            case OPEN_LINES -> mcts.setPuct(new OpenLinePrior(), EXPLORATION);
+        }
+        if (widening) mcts.setProgressiveWidening(1, 0.5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int findBestMove() {
+        State position = positions[next];
+        next = (next + 1) % positions.length;
+        return mcts.findBestMove(position, ITERATIONS);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterations per second of a full {@code findBestMove} search.
+ * <p>
+ * Every invocation searches the next position of the set from scratch with a fixed
+ * number of iterations, so the score is MCTS iterations per second.
+ * Run with {@code -prof gc} to also get the allocation rate per iteration.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int ITERATIONS = 10000;
+
+    @Param({"EARLY", "MID", "LATE", "ISLAND"})
+    public GamePhase phase;
+
+    private State[] positions;
+    private MonteCarloTreeSearch mcts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.create(phase);
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+
+        // Measure MCTS itself, late positions would otherwise go to the endgame solver
+        mcts.setEndgameThreshold(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int findBestMove() {
+        State position = positions[next];
+        next = (next + 1) % positions.length;
+        return mcts.findBestMove(position, ITERATIONS);
+    }
+}
@@ -0,0 +1,126 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.state.PlayoutPolicy;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the StateHandler hot paths on every position set.
+ * <p>
+ * Each invocation runs the operation once on every position of the set, so the scores
+ * are operations per second. Run with {@code -prof gc} to also get allocation rates.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateHandlerBenchmark {
+
+    private static final int POSITIONS = BenchmarkPositions.POSITIONS_PER_SET;
+
+    @Param({"EARLY", "MID", "LATE", "ISLAND"})
+    public GamePhase phase;
+
+    private StateHandler stateHandler;
+    private State[] positions;
+    private int[] moves;
+    private State scratch;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        stateHandler = StateHandler.getInstance();
+        positions = BenchmarkPositions.create(phase);
+        scratch = new State(positions[0]);
+        random = new SplittableRandom(42);
+
+        // One valid move per position, so applyMove always takes the successful path
+        moves = new int[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            moves[i] = Long.numberOfTrailingZeros(stateHandler.getValidMoveMask(positions[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void applyMove(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; i++) {
+            scratch.copyFrom(positions[i]);
+            blackhole.consume(stateHandler.applyMove(scratch, moves[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void applyMoveUnchecked(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; i++) {
+            scratch.copyFrom(positions[i]);
+            stateHandler.applyMoveUnchecked(scratch, moves[i]);
+            blackhole.consume(scratch.getHash());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void getValidMoveMask(Blackhole blackhole) {
+        for (State position : positions) blackhole.consume(stateHandler.getValidMoveMask(position));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void hasFourInARow(Blackhole blackhole) {
+        for (State position : positions) {
+            blackhole.consume(stateHandler.hasFourInARow(position.getBitboard(position.getNextPlayer())));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void hasWon(Blackhole blackhole) {
+        for (State position : positions) blackhole.consume(stateHandler.hasWon(position, position.getNextPlayer()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void isTerminal(Blackhole blackhole) {
+        for (State position : positions) blackhole.consume(stateHandler.isTerminal(position));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void uniformPlayout(Blackhole blackhole) {
+        for (State position : positions) {
+            scratch.copyFrom(position);
+            stateHandler.playout(scratch, random, PlayoutPolicy.UNIFORM);
+            blackhole.consume(scratch.getWinner());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void tacticalPlayout(Blackhole blackhole) {
+        for (State position : positions) {
+            scratch.copyFrom(position);
+            stateHandler.playout(scratch, random, PlayoutPolicy.TACTICAL);
+            blackhole.consume(scratch.getWinner());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.TranspositionTable;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterations per second with and without a transposition table.
+ * <p>
+ * Every invocation searches the next position of the set from scratch, with a table
+ * cleared before each search, so the score is the cost of the table lookups and
+ * shared updates per iteration. With a table, the secondary results report how much
+ * it shares between tree nodes, averaged over the searches of an iteration:
+ * {@code hitRate} is the percentage of lookups that found their position, and
+ * {@code nodeReduction} the percentage of tree nodes that are not a distinct position.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranspositionTableBenchmark {
+
+    private static final int ITERATIONS = 20000;
+    private static final int CAPACITY = 1 << 16;
+
+    @Param({"EARLY", "MID"})
+    public GamePhase phase;
+
+    @Param({"false", "true"})
+    public boolean table;
+
+    private State[] positions;
+    private TranspositionTable transpositionTable;
+    private MonteCarloTreeSearch mcts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.create(phase);
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+        mcts.setEndgameThreshold(0);
+
+        if (table) {
+            transpositionTable = new TranspositionTable(CAPACITY);
+            mcts.setTranspositionTable(transpositionTable);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int findBestMove(TableCounters counters) {
+        State position = positions[next];
+        next = (next + 1) % positions.length;
+        if (transpositionTable == null) return mcts.findBestMove(position, ITERATIONS);
+
+        transpositionTable.clear();
+        int move = mcts.findBestMove(position, ITERATIONS);
+        counters.record(transpositionTable, mcts.getSearchStats().getTreeNodes());
+        return move;
+    }
+
+    /**
+     * Sharing statistics of the table, reported next to the score and left at 0 without a table.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @org.openjdk.jmh.annotations.State(Scope.Thread)
+    public static class TableCounters {
+
+        private int searches;
+        private double hitRateSum;
+        private double nodeReductionSum;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            searches = 0;
+            hitRateSum = 0;
+            nodeReductionSum = 0;
+        }
+
+        void record(TranspositionTable table, long treeNodes) {
+            searches++;
+            hitRateSum += table.getHitRate();
+            nodeReductionSum += 1 - (double) table.getEntryCount() / treeNodes;
+        }
+
+        public double hitRate() {
+            return searches == 0 ? 0 : 100 * hitRateSum / searches;
+        }
+
+        public double nodeReduction() {
+            return searches == 0 ? 0 : 100 * nodeReductionSum / searches;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ustavdica;
+
+import com.ustavdica.features.engine.EngineProtocol;
+import com.ustavdica.features.state.StateHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headless entry point speaking the {@link EngineProtocol} over standard input and output.
+ * <p>
+ * Nothing of Swing or AWT is loaded, so the engine can run on servers and be driven by
+ * scripts, tournament runners or other front ends.
+ */
+public class Engine {
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new EngineProtocol(StateHandler.getInstance(), System.out).run(in);
+    }
+}
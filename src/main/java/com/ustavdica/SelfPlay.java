@@ -0,0 +1,31 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.StateHandler;
+import com.ustavdica.features.tournament.Contestant;
+import com.ustavdica.features.tournament.Sprt;
+import com.ustavdica.features.tournament.Tournament;
+
+/**
+ * Headless entry point playing a self-play match between two iteration budgets on all cores.
+ * <p>
+ * The larger budget is expected to be stronger, so the SPRT tests whether it gains at
+ * least 50 Elo (H1) rather than none (H0) and stops the match once either is accepted.
+ * The same {@link Tournament} compares any two configurations by changing the {@link Contestant}s.
+ * <p>
+ * Usage: {@code SelfPlay [games] [iterationsA] [iterationsB]}
+ */
+public class SelfPlay {
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterationsA = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int iterationsB = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Tournament tournament = new Tournament(StateHandler.getInstance(),
+                Contestant.ofIterations("A", iterationsA),
+                Contestant.ofIterations("B", iterationsB));
+        tournament.setSprt(new Sprt(0, 50, 0.05, 0.05));
+
+        tournament.play(games, Runtime.getRuntime().availableProcessors(), System.out);
+    }
+}
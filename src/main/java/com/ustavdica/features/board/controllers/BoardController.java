@@ -5,6 +5,7 @@ import com.ustavdica.features.board.views.SquareView;
 import com.ustavdica.features.board.models.Board;
 import com.ustavdica.features.board.models.Square;
 import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.Ponderer;
 import com.ustavdica.features.state.Player;
 import com.ustavdica.features.state.State;
 import com.ustavdica.features.state.StateHandler;
@@ -12,17 +13,28 @@ import com.ustavdica.features.state.StateHandler;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 public class BoardController {
 
+    // Upper limit for the AI thinking time, the search stops early when it is reached
+    private static final Duration AI_MOVE_TIME_LIMIT = Duration.ofSeconds(5);
+
+    // Bounds the memory of the tree, pondering while the user thinks would otherwise grow it without limit
+    private static final int AI_NODE_BUDGET = 500_000;
+
     private final Board model;
     private final BoardView view;
 
     private final StateHandler stateHandler;
     private final MonteCarloTreeSearch mcts;
 
+    // Keeps searching while the user thinks, the search of the AI's move reuses that tree
+    private final Ponderer ponderer;
+    private boolean pondering = true;
 
     public BoardController(Board model, BoardView view) {
         this.model = model;
@@ -31,10 +43,26 @@ public class BoardController {
         // Instantiating state handler, this is singleton thus getInstance()
         this.stateHandler = StateHandler.getInstance();
         this.mcts = new MonteCarloTreeSearch(stateHandler);
+        this.mcts.setNodeBudget(AI_NODE_BUDGET);
+        this.ponderer = new Ponderer(mcts, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ponder");
+            thread.setDaemon(true);
+            return thread;
+        }));
 
         initializeBoardView();
     }
 
+    /**
+     * Enables or disables searching on the user's time.
+     *
+     * @param pondering whether the AI keeps searching while the user thinks, true by default
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) ponderer.stop();
+    }
+
     private void initializeBoardView() {
 
         List<SquareView> squareViews = new ArrayList<>();
@@ -89,8 +117,11 @@ public class BoardController {
                     // Disable clicks while AI is thinking
                     lockAllSquares();
 
+                    // The pondered subtree below the user's move becomes the root of this search
+                    ponderer.stop();
+
                     // Perform AI move computation
-                    int best = mcts.findBestMove(state, 150000);
+                    int best = mcts.findBestMove(state, 150000, AI_MOVE_TIME_LIMIT);
 
                     // System.out.println("Performed " + mcts.getIterations() + " random game simulations!");
 
@@ -124,7 +155,11 @@ public class BoardController {
                         if (stateHandler.getAvailableMoves(state).isEmpty()) {
                             showEndGameMessage("It's a draw!");
                             lockAllSquares();
+                            return;
                         }
+
+                        // Search on the user's time until their move arrives
+                        if (pondering) ponderer.start(state);
                     } catch (Exception e) {
                         e.printStackTrace();
                     } finally {
@@ -0,0 +1,355 @@
+package com.ustavdica.features.engine;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.OpeningBook;
+import com.ustavdica.features.search.SearchStats;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.PlayoutPolicy;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line-based text protocol driving the search without a user interface, in the spirit of UCI and GTP.
+ * <p>
+ * Every command is one line, squares are numbered 0-48 as in {@link State}:
+ * <ul>
+ *     <li>{@code isready} - answers {@code readyok}</li>
+ *     <li>{@code newgame} - sets up the empty board with BLUE to move and forgets the previous search tree</li>
+ *     <li>{@code position <startpos|blue|pink> [moves <square>...]} - sets up the empty board with the given
+ *     player to move ({@code startpos} is BLUE) and plays the moves</li>
+ *     <li>{@code go [iterations <n>] [movetime <ms>] [infinite]} - searches the position in the background,
+ *     without limits it searches until {@code stop}</li>
+ *     <li>{@code stop} - stops the running search</li>
+ *     <li>{@code setoption name <threads|rave|endgame|nodes|policy|book> value <v>} - configures the search,
+ *     nodes is the node budget of the tree, policy is the {@link PlayoutPolicy} ({@code uniform} or
+ *     {@code tactical}) and the book value is the path of an {@link OpeningBook} file</li>
+ *     <li>{@code quit} - stops the running search and ends the session</li>
+ * </ul>
+ * While searching, an {@code info time <ms> nodes <n> nps <n> depth <n> bestmove <square> score <value> pv <square>...}
+ * line is printed every second and once more when the search ends, followed by {@code bestmove <square>}, or
+ * {@code bestmove none} if the game is over. The score is the mean value of the best move, between -1
+ * and 1 from the perspective of the player to move. Errors are reported as {@code info string} lines.
+ */
+public class EngineProtocol {
+
+    private static final long INFO_INTERVAL_MILLIS = 1000;
+
+    private final StateHandler stateHandler;
+    private final PrintStream out;
+
+    private final ExecutorService searchExecutor;
+    private final ScheduledExecutorService infoScheduler;
+
+    private MonteCarloTreeSearch mcts;
+    private ExecutorService threadPool;
+    private int threads = 1;
+    private double raveEquivalence;
+    private int endgameThreshold = -1;
+    private int nodeBudget;
+    private PlayoutPolicy playoutPolicy = PlayoutPolicy.UNIFORM;
+    private OpeningBook openingBook;
+
+    private State state = new State(Player.BLUE);
+    private CompletableFuture<Void> search;
+
+    /**
+     * Constructs an EngineProtocol writing its responses to the given stream.
+     *
+     * @param stateHandler the StateHandler generating and applying moves
+     * @param out          the stream responses are written to
+     */
+    public EngineProtocol(StateHandler stateHandler, PrintStream out) {
+        this.stateHandler = stateHandler;
+        this.out = out;
+        this.searchExecutor = Executors.newSingleThreadExecutor(EngineProtocol::daemonThread);
+        this.infoScheduler = Executors.newSingleThreadScheduledExecutor(EngineProtocol::daemonThread);
+        this.mcts = createSearch();
+    }
+
+    private static Thread daemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "engine");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Reads and handles commands until {@code quit} or the end of the input.
+     *
+     * @param in the reader commands are read from
+     * @throws IOException if reading a command fails
+     */
+    public void run(BufferedReader in) throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handle(line)) break;
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Handles a single command.
+     * <p>
+     * {@code go} returns right away, its output follows once the search has ended.
+     *
+     * @param line the command line
+     * @return false if the command was {@code quit}, true otherwise
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        switch (tokens[0]) {
+            case "" -> { }
+            case "isready" -> send("readyok");
+            case "newgame" -> whenIdle(() -> {
+                state = new State(Player.BLUE);
+                mcts = createSearch();
+            });
+            case "position" -> whenIdle(() -> setPosition(tokens));
+            case "go" -> whenIdle(() -> go(tokens));
+            case "setoption" -> whenIdle(() -> setOption(tokens));
+            case "stop" -> stopSearch();
+            case "quit" -> {
+                stopSearch();
+                return false;
+            }
+            default -> send("info string unknown command " + tokens[0]);
+        }
+        return true;
+    }
+
+    private void whenIdle(Runnable command) {
+        if (isSearching()) {
+            send("info string search is running");
+            return;
+        }
+        command.run();
+    }
+
+    private void setPosition(String[] tokens) {
+        if (tokens.length < 2) {
+            send("info string missing starting player");
+            return;
+        }
+
+        Player firstPlayer = switch (tokens[1]) {
+            case "startpos", "blue" -> Player.BLUE;
+            case "pink" -> Player.PINK;
+            default -> null;
+        };
+        if (firstPlayer == null) {
+            send("info string unknown starting player " + tokens[1]);
+            return;
+        }
+
+        State position = new State(firstPlayer);
+        if (tokens.length > 2 && !tokens[2].equals("moves")) {
+            send("info string expected moves after " + tokens[1]);
+            return;
+        }
+        for (int i = 3; i < tokens.length; i++) {
+            Integer square = parseInt(tokens[i]);
+            if (square == null || square < 0 || square > 48 || !stateHandler.applyMove(position, square)) {
+                send("info string illegal move " + tokens[i]);
+                return;
+            }
+        }
+        state = position;
+    }
+
+    private void go(String[] tokens) {
+        int iterations = Integer.MAX_VALUE;
+        Duration moveTime = null;
+
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "infinite" -> { }
+                case "iterations", "movetime" -> {
+                    Integer value = i + 1 < tokens.length ? parseInt(tokens[i + 1]) : null;
+                    if (value == null || value <= 0) {
+                        send("info string invalid " + tokens[i]);
+                        return;
+                    }
+                    if (tokens[i].equals("iterations")) {
+                        iterations = value;
+                    } else {
+                        moveTime = Duration.ofMillis(value);
+                    }
+                    i++;
+                }
+                default -> {
+                    send("info string unknown limit " + tokens[i]);
+                    return;
+                }
+            }
+        }
+
+        startSearch(new State(state), iterations, moveTime);
+    }
+
+    private void startSearch(State searchState, int iterations, Duration moveTime) {
+        long startNanos = System.nanoTime();
+        ScheduledFuture<?> info = infoScheduler.scheduleAtFixedRate(
+                () -> sendInfo(startNanos), INFO_INTERVAL_MILLIS, INFO_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<Integer> bestMove = moveTime == null
+                ? mcts.findBestMoveAsync(searchState, iterations, searchExecutor)
+                : mcts.findBestMoveAsync(searchState, iterations, moveTime, searchExecutor);
+        search = bestMove.handle((move, failure) -> {
+            info.cancel(false);
+            if (failure == null) {
+                sendInfo(startNanos);
+                send("bestmove " + (move < 0 ? "none" : move));
+            } else {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                send("info string search failed: " + cause.getMessage());
+                send("bestmove none");
+            }
+            return null;
+        });
+    }
+
+    private void sendInfo(long startNanos) {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        SearchStats stats = mcts.getSearchStats();
+        int bestMove = mcts.getBestMoveSoFar();
+
+        StringBuilder line = new StringBuilder()
+                .append("info time ").append(elapsedMillis)
+                .append(" nodes ").append(stats.getIterations())
+                .append(" nps ").append(stats.getIterations() * 1000 / elapsedMillis)
+                .append(" depth ").append(stats.getMaxDepth());
+        if (bestMove >= 0) {
+            line.append(" bestmove ").append(bestMove)
+                    .append(" score ").append(String.format(Locale.ROOT, "%.3f", stats.getRootStatistics().getMeanValue(bestMove)));
+        }
+        int[] principalVariation = stats.getPrincipalVariation();
+        if (principalVariation.length > 0) {
+            line.append(" pv");
+            for (int move : principalVariation) line.append(' ').append(move);
+        }
+        send(line.toString());
+    }
+
+    private void stopSearch() {
+        if (search == null) return;
+
+        mcts.stop();
+        search.join();
+    }
+
+    private boolean isSearching() {
+        return search != null && !search.isDone();
+    }
+
+    private void setOption(String[] tokens) {
+        if (tokens.length != 5 || !tokens[1].equals("name") || !tokens[3].equals("value")) {
+            send("info string expected setoption name <option> value <value>");
+            return;
+        }
+
+        String name = tokens[2].toLowerCase(Locale.ROOT);
+        String value = tokens[4];
+
+        // The search rejects invalid values when it is created, the previous ones are kept then
+        int previousThreads = threads;
+        double previousRaveEquivalence = raveEquivalence;
+        int previousEndgameThreshold = endgameThreshold;
+        int previousNodeBudget = nodeBudget;
+        PlayoutPolicy previousPlayoutPolicy = playoutPolicy;
+        try {
+            switch (name) {
+                case "threads" -> {
+                    int count = Integer.parseInt(value);
+                    if (count < 1) throw new IllegalArgumentException("Threads must be at least 1");
+                    threads = count;
+                }
+                case "rave" -> raveEquivalence = Double.parseDouble(value);
+                case "endgame" -> endgameThreshold = Integer.parseInt(value);
+                case "nodes" -> nodeBudget = Integer.parseInt(value);
+                case "policy" -> playoutPolicy = PlayoutPolicy.valueOf(value.toUpperCase(Locale.ROOT));
+                case "book" -> {
+                    try {
+                        openingBook = OpeningBook.open(Path.of(value));
+                    } catch (IOException e) {
+                        send("info string cannot read book " + value + ": " + e.getMessage());
+                        return;
+                    }
+                }
+                default -> {
+                    send("info string unknown option " + tokens[2]);
+                    return;
+                }
+            }
+            mcts = createSearch();
+        } catch (IllegalArgumentException e) {
+            threads = previousThreads;
+            raveEquivalence = previousRaveEquivalence;
+            endgameThreshold = previousEndgameThreshold;
+            nodeBudget = previousNodeBudget;
+            playoutPolicy = previousPlayoutPolicy;
+            send("info string invalid value " + value + " for " + tokens[2]);
+        }
+    }
+
+    private MonteCarloTreeSearch createSearch() {
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(stateHandler);
+        if (raveEquivalence > 0) search.setRave(raveEquivalence);
+        if (endgameThreshold >= 0) search.setEndgameThreshold(endgameThreshold);
+        search.setOpeningBook(openingBook);
+        search.setNodeBudget(nodeBudget);
+        search.setPlayoutPolicy(playoutPolicy);
+
+        if (threadPool != null) threadPool.shutdown();
+        threadPool = threads > 1 ? Executors.newFixedThreadPool(threads - 1, EngineProtocol::daemonThread) : null;
+        if (threadPool != null) search.setThreads(threads, threadPool);
+        return search;
+    }
+
+    private static Integer parseInt(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    /**
+     * Stops the running search and releases the engine threads.
+     */
+    public void close() {
+        stopSearch();
+        searchExecutor.shutdown();
+        infoScheduler.shutdown();
+        if (threadPool != null) threadPool.shutdown();
+    }
+
+    // Getters
+    public State getState() {
+        return state;
+    }
+
+    public PlayoutPolicy getPlayoutPolicy() {
+        return playoutPolicy;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.State;
+
+/**
+ * Prior preferring moves close to the center of the board.
+ * <p>
+ * Central squares lie on more lines of four than squares on the edge, so they
+ * are weighted by their ring, from 4 on the center square down to 1 on the edge.
+ */
+public class CentralityPrior implements MovePrior {
+
+    private static final int BOARD_SIZE = 7;
+    private static final int CENTER = BOARD_SIZE / 2;
+
+    private static final double[] WEIGHTS = createWeights();
+
+    private static double[] createWeights() {
+        double[] weights = new double[BOARD_SIZE * BOARD_SIZE];
+        for (int square = 0; square < weights.length; square++) {
+            int ring = Math.max(Math.abs(square / BOARD_SIZE - CENTER), Math.abs(square % BOARD_SIZE - CENTER));
+            weights[square] = CENTER + 1 - ring;
+        }
+        return weights;
+    }
+
+    @Override
+    public double weight(State state, int square) {
+        return WEIGHTS[square];
+    }
+}
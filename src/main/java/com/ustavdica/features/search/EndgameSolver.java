@@ -0,0 +1,318 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exact solver for positions close to the end of the game.
+ * <p>
+ * Runs a negamax search with alpha-beta pruning, deepening one move at a time until
+ * a forced win or loss is found or the search reaches the end of the game, at which
+ * point the result is exact. A winning move is played right away, the other moves are
+ * ordered by the best move stored in the solver's own transposition table first, then
+ * moves blocking the opponent's winning squares.
+ * <p>
+ * Scores are from the perspective of the player to move. A win scores
+ * {@link #WIN_SCORE} minus the number of moves needed, so faster wins and slower
+ * losses are preferred. A draw, and any position the current depth does not
+ * reach the end of, scores 0.
+ * <p>
+ * The solver is not thread-safe.
+ */
+public class EndgameSolver {
+
+    public static final int WIN_SCORE = 1000;
+
+    // Scores beyond this are wins or losses, no game is longer than 49 moves
+    private static final int PROVEN_SCORE = WIN_SCORE - 64;
+
+    private static final int BOARD_SQUARES = 49;
+    private static final int FULL_BOARD_STONES = 48;
+    private static final long BOARD_MASK = 0x1ffffffffffffL;
+
+    // The deadline and the stop condition are checked once per this many nodes (must be a power of two)
+    private static final int CLOCK_CHECK_INTERVAL = 4096;
+
+    private static final byte EXACT = 0;
+    private static final byte LOWER_BOUND = 1;
+    private static final byte UPPER_BOUND = 2;
+
+    private static final byte NO_MOVE = -1;
+
+    // Key 0 marks an empty slot
+    private static final long EMPTY = 0L;
+
+    private static final BooleanSupplier NEVER_STOP = () -> false;
+
+    private final StateHandler stateHandler;
+
+    // Transposition table, one entry per slot
+    private final long[] keys;
+    private final short[] scores;
+    private final byte[] depths;
+    private final byte[] bounds;
+    private final byte[] moves;
+    private final int slotMask;
+
+    // One scratch state per ply, so the search does not allocate
+    private final State[] stack;
+
+    private long nodes;
+    private long deadlineNanos;
+    private boolean hasDeadline;
+    private BooleanSupplier stopCondition;
+    private boolean aborted;
+
+    private int rootMove;
+    private int score;
+    private int searchedDepth;
+
+    /**
+     * Constructs an EndgameSolver with a transposition table of about a million entries.
+     *
+     * @param stateHandler the StateHandler generating and applying moves
+     */
+    public EndgameSolver(StateHandler stateHandler) {
+        this(stateHandler, 1 << 20);
+    }
+
+    /**
+     * Constructs an EndgameSolver with a transposition table of the given size.
+     *
+     * @param stateHandler the StateHandler generating and applying moves
+     * @param capacity     the minimum number of table entries, rounded up to a power of two
+     */
+    public EndgameSolver(StateHandler stateHandler, int capacity) {
+        this.stateHandler = stateHandler;
+
+        int slots = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.keys = new long[slots];
+        this.scores = new short[slots];
+        this.depths = new byte[slots];
+        this.bounds = new byte[slots];
+        this.moves = new byte[slots];
+        this.slotMask = slots - 1;
+
+        this.stack = new State[BOARD_SQUARES + 1];
+        for (int i = 0; i < stack.length; i++) stack[i] = new State(Player.BLUE);
+    }
+
+    /**
+     * Counts the empty squares of a position.
+     *
+     * @param state the position to count in
+     * @return the number of squares no player has taken
+     */
+    public static int countEmptySquares(State state) {
+        return BOARD_SQUARES - Long.bitCount(state.getCombinedBitboard());
+    }
+
+    /**
+     * Solves a position without a time limit.
+     *
+     * @param state the position to solve, it is not modified
+     * @return the best move, or -1 if the game is over
+     */
+    public int solve(State state) {
+        return solve(state, 0, false, NEVER_STOP);
+    }
+
+    /**
+     * Solves a position, giving up when the deadline passes.
+     *
+     * @param state         the position to solve, it is not modified
+     * @param deadlineNanos the {@link System#nanoTime()} at which the search gives up
+     * @return the best move, or -1 if the game is over or the position was not solved in time
+     */
+    public int solve(State state, long deadlineNanos) {
+        return solve(state, deadlineNanos, true, NEVER_STOP);
+    }
+
+    /**
+     * Solves a position without a time limit, giving up once the stop condition is met.
+     * <p>
+     * The condition is checked every few thousand nodes, so it should be cheap,
+     * e.g. the read of a volatile flag set by another thread.
+     *
+     * @param state         the position to solve, it is not modified
+     * @param stopCondition true once the search should give up
+     * @return the best move, or -1 if the game is over or the search was stopped before the position was solved
+     */
+    public int solve(State state, BooleanSupplier stopCondition) {
+        return solve(state, 0, false, stopCondition);
+    }
+
+    /**
+     * Solves a position, giving up when the deadline passes or once the stop condition is met.
+     *
+     * @param state         the position to solve, it is not modified
+     * @param deadlineNanos the {@link System#nanoTime()} at which the search gives up
+     * @param stopCondition true once the search should give up
+     * @return the best move, or -1 if the game is over or the position was not solved in time
+     */
+    public int solve(State state, long deadlineNanos, BooleanSupplier stopCondition) {
+        return solve(state, deadlineNanos, true, stopCondition);
+    }
+
+    private int solve(State state, long deadlineNanos, boolean hasDeadline, BooleanSupplier stopCondition) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+        this.stopCondition = stopCondition;
+        this.aborted = false;
+        this.nodes = 0;
+        this.score = 0;
+        this.searchedDepth = 0;
+
+        if (state.isGameOver()) return -1;
+
+        stack[0].copyFrom(state);
+        int remainingMoves = FULL_BOARD_STONES - Long.bitCount(state.getCombinedBitboard());
+
+        int bestMove = -1;
+        for (int iterationDepth = 1; iterationDepth <= remainingMoves; iterationDepth++) {
+            int iterationScore = search(0, iterationDepth, -WIN_SCORE, WIN_SCORE);
+            if (aborted) return -1;
+
+            bestMove = rootMove;
+            score = iterationScore;
+            searchedDepth = iterationDepth;
+
+            // A forced result does not change with more depth
+            if (Math.abs(iterationScore) > PROVEN_SCORE) break;
+        }
+        return bestMove;
+    }
+
+    private int search(int ply, int depth, int alpha, int beta) {
+        State state = stack[ply];
+
+        // The player who has just moved is the only one who can have won
+        if (state.isGameOver()) return state.getWinner() == null ? 0 : -(WIN_SCORE - ply);
+
+        if ((++nodes & (CLOCK_CHECK_INTERVAL - 1)) == 0
+                && (hasDeadline && System.nanoTime() - deadlineNanos >= 0 || stopCondition.getAsBoolean())) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+
+        long validMoveMask = stateHandler.getValidMoveMask(state);
+        long emptySquares = ~state.getCombinedBitboard() & BOARD_MASK;
+
+        // A winning move ends the game right away, no need to look at the others
+        long wins = stateHandler.getWinningSquares(state.getBitboard(state.getNextPlayer()), emptySquares) & validMoveMask;
+        if (wins != 0) {
+            if (ply == 0) rootMove = Long.numberOfTrailingZeros(wins);
+            store(state.getHash(), WIN_SCORE - (ply + 1), depth, EXACT, Long.numberOfTrailingZeros(wins), ply);
+            return WIN_SCORE - (ply + 1);
+        }
+
+        if (depth == 0) return 0;
+
+        // Searching past the end of the game gives the same result, so such entries serve every depth
+        int remainingMoves = FULL_BOARD_STONES - Long.bitCount(state.getCombinedBitboard());
+        depth = Math.min(depth, remainingMoves);
+
+        long key = state.getHash();
+        int ttMove = NO_MOVE;
+        int slot = find(key);
+        if (slot >= 0) {
+            ttMove = moves[slot];
+
+            // The root always searches its moves, so the best move is known
+            if (ply > 0 && depths[slot] >= depth) {
+                int ttScore = fromTableScore(scores[slot], ply);
+                if (bounds[slot] == EXACT) return ttScore;
+                if (bounds[slot] == LOWER_BOUND && ttScore >= beta) return ttScore;
+                if (bounds[slot] == UPPER_BOUND && ttScore <= alpha) return ttScore;
+            }
+        }
+
+        // Search the table move first, then blocks of the opponent's winning squares, then the rest
+        Player opponent = state.getNextPlayer() == Player.BLUE ? Player.PINK : Player.BLUE;
+        long blocks = stateHandler.getWinningSquares(state.getBitboard(opponent), emptySquares) & validMoveMask;
+        long first = ttMove != NO_MOVE && (validMoveMask & (1L << ttMove)) != 0 ? 1L << ttMove : 0L;
+        long[] orderedMoves = {first, blocks & ~first, validMoveMask & ~blocks & ~first};
+
+        int originalAlpha = alpha;
+        int bestScore = -WIN_SCORE;
+        int bestMove = NO_MOVE;
+        State child = stack[ply + 1];
+
+        for (long moveMask : orderedMoves) {
+            while (moveMask != 0) {
+                int move = Long.numberOfTrailingZeros(moveMask);
+                moveMask &= moveMask - 1;
+
+                child.copyFrom(state);
+                stateHandler.applyMoveUnchecked(child, move);
+                int childScore = -search(ply + 1, depth - 1, -beta, -alpha);
+                if (aborted) return 0;
+
+                if (childScore > bestScore) {
+                    bestScore = childScore;
+                    bestMove = move;
+                    if (ply == 0) rootMove = move;
+                }
+                if (bestScore > alpha) alpha = bestScore;
+                if (alpha >= beta) {
+                    store(key, bestScore, depth, LOWER_BOUND, bestMove, ply);
+                    return bestScore;
+                }
+            }
+        }
+
+        store(key, bestScore, depth, bestScore <= originalAlpha ? UPPER_BOUND : EXACT, bestMove, ply);
+        return bestScore;
+    }
+
+    private int find(long key) {
+        int slot = (int) (key & slotMask);
+        return keys[slot] == key ? slot : -1;
+    }
+
+    private void store(long key, int score, int depth, byte bound, int move, int ply) {
+        int slot = (int) (key & slotMask);
+        keys[slot] = key;
+        scores[slot] = (short) toTableScore(score, ply);
+        depths[slot] = (byte) depth;
+        bounds[slot] = bound;
+        moves[slot] = (byte) move;
+    }
+
+    // Win and loss scores count moves from the root, the table counts them from the stored position
+    private static int toTableScore(int score, int ply) {
+        if (score > PROVEN_SCORE) return score + ply;
+        if (score < -PROVEN_SCORE) return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score > PROVEN_SCORE) return score - ply;
+        if (score < -PROVEN_SCORE) return score + ply;
+        return score;
+    }
+
+    /**
+     * Removes all entries from the transposition table.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Getters
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return searchedDepth;
+    }
+
+    public long getNodeCount() {
+        return nodes;
+    }
+}
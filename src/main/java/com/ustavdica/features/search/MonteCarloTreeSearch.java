@@ -1,17 +1,118 @@
 package com.ustavdica.features.search;
 
+import com.ustavdica.features.state.BatchPlayout;
 import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.PlayoutPolicy;
 import com.ustavdica.features.state.State;
 import com.ustavdica.features.state.StateHandler;
 
+import jdk.jfr.EventType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
 
 public class MonteCarloTreeSearch {
 
+    // Scores of a finished game, see outcome(), a win for one player is a loss for the other
+    static final double WIN_REWARD = 1;
+    static final double LOSS_REWARD = -1;
+    static final double DRAW_REWARD = 0;
+
+    // The clock is read once per this many iterations of a searching thread (must be a power of two)
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    // A progress event is committed at most this often while searching
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static final EventType PROGRESS_EVENT_TYPE = EventType.getEventType(SearchProgressEvent.class);
+
+    // Length of the principal variation reported in the search statistics
+    private static final int PRINCIPAL_VARIATION_LENGTH = 8;
+
+    // Smallest node budget, pruning always gets the tree below it
+    private static final int MIN_NODE_BUDGET = 1000;
+
+    // Pruning cuts the tree down to this share of the node budget, so it does not run every iteration
+    private static final double PRUNE_TARGET = 0.75;
+
+    // Rough heap footprint of a node with its State, measured on a 64-bit JVM with compressed pointers
+    private static final int ESTIMATED_NODE_BYTES = 170;
+
+    // Positions with fewer empty squares are solved exactly instead of sampled
+    private static final int DEFAULT_ENDGAME_THRESHOLD = 20;
+
     private final StateHandler stateHandler;
-    private TreeNode root;
-    private int iterations;
+    private SearchContext context;
+
+    private int threads;
+    private ExecutorService executor;
+    private boolean useVirtualLoss;
+
+    private int leafPlayouts;
+    private ExecutorService leafExecutor;
+    private boolean batchedPlayouts;
+
+    private boolean treeReuse;
+    private PlayoutPolicy playoutPolicy;
+    private TranspositionTable transpositionTable;
+
+    private int endgameThreshold;
+    private EndgameSolver endgameSolver;
+
+    private OpeningBook openingBook;
+
+    // Soft limit on the number of nodes in the tree, 0 for no limit
+    private int nodeBudget;
+    private NodeFreeList freeList;
+
+    // RAVE equivalence parameter, 0 when RAVE is disabled
+    private double raveEquivalence;
+
+    // PUCT selection is used when a prior is set, widening is disabled with a coefficient of 0
+    private MovePrior movePrior;
+    private double puctExploration;
+    private double wideningCoefficient;
+    private double wideningExponent;
+
+    private volatile TreeNode root;
+    // Counters of the current search, readable while it runs and striped so the threads do not contend on them
+    private final LongAdder completedIterations = new LongAdder();
+    private final LongAdder completedPlayouts = new LongAdder();
+    private final LongAdder nodesCreated = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder liveNodes = new LongAdder();
+    private final LongAdder nodesRecycled = new LongAdder();
+
+    private volatile boolean searching;
+    private volatile long searchStartNanos;
+    private volatile long searchEndNanos;
+    private long lastProgressNanos;
+
+    // Where the move of the last search came from, reported in the end event
+    private String moveSource;
+
+    // Iterations left in the current search, set to 0 to stop all searching threads
+    private final AtomicInteger remainingIterations;
+
+    // Searches submitted or running, a stop is kept for them until the last one has ended, see stop()
+    private final Object stopLock = new Object();
+    private int activeSearches;
+    private volatile boolean stopRequested;
+    private boolean hasDeadline;
+    private long deadlineNanos;
 
     /**
      * Constructs a MonteCarloTreeSearch instance with the specified StateHandler.
@@ -23,7 +124,230 @@ public class MonteCarloTreeSearch {
      * @param stateHandler the StateHandler responsible for state-related operations
      */
     public MonteCarloTreeSearch(StateHandler stateHandler) {
+        this(stateHandler, new SplittableRandom());
+    }
+
+    /**
+     * Constructs a MonteCarloTreeSearch instance with its own source of randomness.
+     * <p>
+     * Searches running in parallel should each get a separate generator, so they
+     * do not contend on it and explore the tree differently.
+     *
+     * @param stateHandler the StateHandler responsible for state-related operations
+     * @param random       the source of randomness used for expansion and playouts
+     */
+    public MonteCarloTreeSearch(StateHandler stateHandler, RandomGenerator random) {
         this.stateHandler = stateHandler;
+        this.leafPlayouts = 1;
+        this.context = new SearchContext(random, leafPlayouts, null);
+        this.threads = 1;
+        this.treeReuse = true;
+        this.playoutPolicy = PlayoutPolicy.UNIFORM;
+        this.endgameThreshold = DEFAULT_ENDGAME_THRESHOLD;
+        this.remainingIterations = new AtomicInteger();
+    }
+
+    /**
+     * Makes the search run on a single tree shared by several threads.
+     * <p>
+     * The calling thread of {@link #findBestMove(State, int)} takes part in the
+     * search, the remaining {@code threads - 1} searches are submitted to the
+     * executor. While more than one thread is searching, every node on a selected
+     * path carries a virtual loss until its result is backpropagated.
+     *
+     * @param threads  the number of threads searching the tree, 1 to search single-threaded
+     * @param executor the executor the additional threads are submitted to
+     */
+    public void setThreads(int threads, ExecutorService executor) {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required, got " + threads);
+        if (threads > 1 && executor == null) throw new IllegalArgumentException("An executor is required for " + threads + " threads");
+
+        this.threads = threads;
+        this.executor = executor;
+    }
+
+    /**
+     * Makes every simulation run several playouts from the same leaf in parallel.
+     * <p>
+     * The results of the {@code playouts} games are summed and backpropagated
+     * once, counting one visit per playout. One playout is played by the searching
+     * thread itself, the others are submitted to the executor, which is typically
+     * a virtual thread per task executor or a ForkJoinPool.
+     *
+     * @param playouts the number of playouts per simulation, 1 to play them one at a time
+     * @param executor the executor the additional playouts are submitted to
+     */
+    public void setLeafParallelism(int playouts, ExecutorService executor) {
+        if (playouts < 1) throw new IllegalArgumentException("At least one playout is required, got " + playouts);
+        if (playouts > 1 && executor == null) throw new IllegalArgumentException("An executor is required for " + playouts + " playouts");
+
+        this.leafPlayouts = playouts;
+        this.leafExecutor = executor;
+        this.batchedPlayouts = false;
+        this.context = new SearchContext(context.random, playouts, null);
+    }
+
+    /**
+     * Makes every simulation run several playouts from the same leaf as one vector batch.
+     * <p>
+     * The games are played lane-wise by a {@link BatchPlayout} engine on the searching
+     * thread, 4 or 8 at a time depending on the vector width, and their results are summed
+     * and backpropagated once, counting one visit per playout. Replaces the executor-based
+     * leaf parallelism of {@link #setLeafParallelism(int, ExecutorService)}. Batched playouts
+     * are uniformly random, the engine is only loaded here and needs a build with the
+     * {@code vector} profile and the {@code jdk.incubator.vector} module at run time.
+     *
+     * @param playouts the number of playouts per simulation, typically a multiple of the lane count,
+     *                 0 to play single playouts without the batch engine
+     * @throws IllegalStateException if the batch engine is not available
+     */
+    public void setBatchedPlayouts(int playouts) {
+        if (playouts < 0) throw new IllegalArgumentException("The number of playouts cannot be negative, got " + playouts);
+        BatchPlayout batchEngine = playouts > 0 ? BatchPlayout.create(stateHandler, context.random.nextLong()) : null;
+
+        this.leafPlayouts = Math.max(1, playouts);
+        this.leafExecutor = null;
+        this.batchedPlayouts = playouts > 0;
+        this.context = new SearchContext(context.random, leafPlayouts, batchEngine);
+    }
+
+    private BatchPlayout createBatchEngine(RandomGenerator random) {
+        return batchedPlayouts ? BatchPlayout.create(stateHandler, random.nextLong()) : null;
+    }
+
+    /**
+     * Enables or disables keeping the tree between searches.
+     * <p>
+     * When enabled, a search of a position that is reachable in at most two moves
+     * from the previous root, typically our move and the opponent's reply, continues
+     * from the matching subtree instead of starting from a fresh root. Enabled by default.
+     *
+     * @param treeReuse true to keep the tree between searches, false to always start from scratch
+     */
+    public void setTreeReuse(boolean treeReuse) {
+        this.treeReuse = treeReuse;
+    }
+
+    /**
+     * Makes the search share statistics between nodes holding the same position.
+     * <p>
+     * Every backpropagated result is also added to the entry of the node's position,
+     * and selection scores children with those shared statistics, so positions reached
+     * by different move orders are searched as one. The table is not thread-safe, so
+     * it can only be used while searching with a single thread.
+     *
+     * @param transpositionTable the table to share statistics through, or null to disable it
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Sets the strategy used to pick moves during playouts.
+     *
+     * @param playoutPolicy the playout policy, {@link PlayoutPolicy#UNIFORM} by default
+     */
+    public void setPlayoutPolicy(PlayoutPolicy playoutPolicy) {
+        this.playoutPolicy = playoutPolicy;
+    }
+
+    /**
+     * Enables or disables Rapid Action Value Estimation (RAVE).
+     * <p>
+     * Every expanded node collects all-moves-as-first (AMAF) statistics: each playout
+     * through the node counts for every square the player to move there takes later in
+     * the game, as if it had been played first. Selection blends a child's mean value
+     * with the AMAF mean of its move, weighted by beta = sqrt(k / (3n + k)) for a child
+     * visited n times, so the AMAF estimate guides the search while the child's own
+     * statistics are still noisy. The AMAF means also decide which untried move of a
+     * node gets the next child. RAVE is not combined with the transposition table.
+     *
+     * @param equivalence the number of visits k at which both estimates weigh the same, 0 to disable RAVE
+     */
+    public void setRave(double equivalence) {
+        if (equivalence < 0) throw new IllegalArgumentException("The equivalence parameter cannot be negative, got " + equivalence);
+        this.raveEquivalence = equivalence;
+    }
+
+    /**
+     * Enables or disables PUCT selection with a heuristic prior over moves.
+     * <p>
+     * Each child is scored by its mean value plus {@code exploration * P * sqrt(N) / (1 + n)},
+     * where P is the normalized prior of its move, N the visits of the parent and n the
+     * visits of the child. Unvisited children are valued at the mean of their parent, so
+     * moves with a low prior are only tried once the better ones have been searched.
+     * PUCT replaces UCT and RAVE selection, but not the transposition table.
+     *
+     * @param movePrior   the prior scoring the moves, or null to select with UCT
+     * @param exploration the weight of the exploration term
+     */
+    public void setPuct(MovePrior movePrior, double exploration) {
+        if (exploration <= 0) throw new IllegalArgumentException("The exploration weight has to be positive, got " + exploration);
+        this.movePrior = movePrior;
+        this.puctExploration = exploration;
+    }
+
+    /**
+     * Enables or disables progressive widening for PUCT selection.
+     * <p>
+     * A node visited n times has {@code ceil(coefficient * (n + 1)^exponent)} children,
+     * added in the order of their priors, so rarely visited nodes only search their
+     * most promising moves. Only applies while a prior is set with {@link #setPuct}.
+     *
+     * @param coefficient the number of children of a node visited once, 0 to add all children at once
+     * @param exponent    how fast the number of children grows with the visits, typically 0.5
+     */
+    public void setProgressiveWidening(double coefficient, double exponent) {
+        if (coefficient < 0) throw new IllegalArgumentException("The coefficient cannot be negative, got " + coefficient);
+        if (exponent < 0) throw new IllegalArgumentException("The exponent cannot be negative, got " + exponent);
+        this.wideningCoefficient = coefficient;
+        this.wideningExponent = exponent;
+    }
+
+    /**
+     * Sets the number of empty squares below which positions are solved exactly.
+     * <p>
+     * Such positions are searched by an {@link EndgameSolver} instead of MCTS. With a
+     * time budget the solver may use half of it, and if it does not finish in time
+     * MCTS searches for the rest of the budget.
+     *
+     * @param emptySquares the threshold, 20 by default, 0 to never use the solver
+     */
+    public void setEndgameThreshold(int emptySquares) {
+        if (emptySquares < 0) throw new IllegalArgumentException("The threshold cannot be negative, got " + emptySquares);
+        this.endgameThreshold = emptySquares;
+    }
+
+    /**
+     * Limits the number of nodes in the tree, so searches of any length fit in a fixed amount of memory.
+     * <p>
+     * Once the budget is reached, a single-threaded search cuts off the subtrees of the
+     * least visited nodes until the tree is down to three quarters of the budget, and
+     * keeps the nodes in a free list to build new children from. A parallel search stops
+     * expanding instead and is pruned before the next search starts. Nodes of the
+     * previous tree that are not reused are recycled as well. A single expansion may
+     * go over the budget by up to one node per valid move.
+     *
+     * @param maxNodes the maximum number of nodes, at least 1000, or 0 for no limit
+     */
+    public void setNodeBudget(int maxNodes) {
+        if (maxNodes != 0 && maxNodes < MIN_NODE_BUDGET) {
+            throw new IllegalArgumentException("The node budget must be 0 or at least " + MIN_NODE_BUDGET + ", got " + maxNodes);
+        }
+        this.nodeBudget = maxNodes;
+        this.freeList = maxNodes > 0 ? new NodeFreeList() : null;
+    }
+
+    /**
+     * Sets the opening book consulted before searching.
+     * <p>
+     * A position found in the book is answered with its book move right away,
+     * without searching or reusing the previous tree.
+     *
+     * @param openingBook the book to look positions up in, or null to always search
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
     }
 
 
@@ -31,27 +355,499 @@ public class MonteCarloTreeSearch {
      * Finds the best move using the Monte Carlo Tree Search (MCTS) algorithm.
      */
     public int findBestMove(State state, int maxIterations) {
+        beginSearch();
+        return findBestMove(state, maxIterations, 0, false);
+    }
+
+    /**
+     * Finds the best move within a wall-clock budget.
+     * <p>
+     * The search runs until the time budget is used up or {@link #stop()} is called,
+     * and returns the best move found so far.
+     *
+     * @param state      the state to search from, it is not modified
+     * @param timeBudget the wall-clock time the search may take
+     * @return the best move, or -1 if there is no valid move
+     */
+    public int findBestMove(State state, Duration timeBudget) {
+        return findBestMove(state, Integer.MAX_VALUE, timeBudget);
+    }
+
+    /**
+     * Finds the best move within both an iteration and a wall-clock budget.
+     * <p>
+     * The search stops as soon as either budget is used up, which caps the
+     * latency of a move on a slow or busy machine.
+     *
+     * @param state         the state to search from, it is not modified
+     * @param maxIterations the maximum number of iterations to run
+     * @param timeBudget    the wall-clock time the search may take
+     * @return the best move, or -1 if there is no valid move
+     */
+    public int findBestMove(State state, int maxIterations, Duration timeBudget) {
+        beginSearch();
+        return findBestMove(state, maxIterations, timeBudget.toNanos(), true);
+    }
+
+    /**
+     * Finds the best move on the given executor.
+     * <p>
+     * The search counts as started once this method returns, so a {@link #stop()}
+     * from then on stops it, even before the executor has begun running it.
+     *
+     * @param state         the state to search from, it is copied
+     * @param maxIterations the maximum number of iterations to run
+     * @param executor      the executor running the search
+     * @return the best move once the search has ended, or -1 if there is no valid move
+     */
+    public CompletableFuture<Integer> findBestMoveAsync(State state, int maxIterations, Executor executor) {
+        return findBestMoveAsync(state, maxIterations, 0, false, executor);
+    }
+
+    /**
+     * Finds the best move within an iteration and a wall-clock budget on the given executor.
+     * <p>
+     * The time budget starts when the executor begins running the search. Stopping works
+     * as with {@link #findBestMoveAsync(State, int, Executor)}.
+     *
+     * @param state         the state to search from, it is copied
+     * @param maxIterations the maximum number of iterations to run
+     * @param timeBudget    the wall-clock time the search may take
+     * @param executor      the executor running the search
+     * @return the best move once the search has ended, or -1 if there is no valid move
+     */
+    public CompletableFuture<Integer> findBestMoveAsync(State state, int maxIterations, Duration timeBudget, Executor executor) {
+        return findBestMoveAsync(state, maxIterations, timeBudget.toNanos(), true, executor);
+    }
+
+    private CompletableFuture<Integer> findBestMoveAsync(State state, int maxIterations, long timeBudgetNanos,
+                                                         boolean hasDeadline, Executor executor) {
+        State searchState = new State(state);
+        beginSearch();
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> findBestMove(searchState, maxIterations, timeBudgetNanos, hasDeadline), executor);
+        } catch (RuntimeException e) {
+            // The executor has rejected the search, so it never ends on its own
+            endSearch();
+            throw e;
+        }
+    }
 
-        root = new TreeNode(state, null, stateHandler);
+    private void beginSearch() {
+        synchronized (stopLock) {
+            activeSearches++;
+        }
+    }
+
+    private void endSearch() {
+        synchronized (stopLock) {
+            if (--activeSearches == 0) stopRequested = false;
+        }
+    }
+
+    // Ends the search begun by the caller, see beginSearch()
+    private int findBestMove(State state, int maxIterations, long timeBudgetNanos, boolean hasDeadline) {
+        try {
+            return searchBestMove(state, maxIterations, timeBudgetNanos, hasDeadline);
+        } finally {
+            endSearch();
+        }
+    }
+
+    private int searchBestMove(State state, int maxIterations, long timeBudgetNanos, boolean hasDeadline) {
+        if (transpositionTable != null && threads > 1) {
+            throw new IllegalStateException("The transposition table cannot be used by " + threads + " threads");
+        }
+        if (batchedPlayouts && playoutPolicy != PlayoutPolicy.UNIFORM) {
+            throw new IllegalStateException("Batched playouts only support the " + PlayoutPolicy.UNIFORM + " playout policy");
+        }
+
+        SearchEndEvent endEvent = new SearchEndEvent();
+        endEvent.begin();
+        startSearch(state, maxIterations, hasDeadline ? timeBudgetNanos : 0);
+
+        int move = -1;
+        try {
+            move = runSearch(state, maxIterations, timeBudgetNanos, hasDeadline);
+            return move;
+        } finally {
+            searchEndNanos = System.nanoTime();
+            searching = false;
+            commitEndEvent(endEvent, move);
+        }
+    }
+
+    private int runSearch(State state, int maxIterations, long timeBudgetNanos, boolean hasDeadline) {
+        long startNanos = searchStartNanos;
+        if (openingBook != null) {
+            int bookMove = openingBook.getBestMove(state);
+            if (bookMove >= 0 && (stateHandler.getValidMoveMask(state) & (1L << bookMove)) != 0) {
+                replaceRoot(newRoot(state));
+                moveSource = "book";
+                return bookMove;
+            }
+        }
+
+        if (EndgameSolver.countEmptySquares(state) < endgameThreshold && !stateHandler.isTerminal(state)) {
+            if (endgameSolver == null) endgameSolver = new EndgameSolver(stateHandler);
+
+            // Without a deadline only stop() ends an unsolved position, e.g. of a pondering or infinite search
+            int solvedMove = hasDeadline
+                    ? endgameSolver.solve(state, startNanos + timeBudgetNanos / 2, () -> stopRequested)
+                    : endgameSolver.solve(state, () -> stopRequested);
+            if (solvedMove >= 0) {
+                // Nothing of the previous tree is searched, so it cannot be reused either
+                replaceRoot(newRoot(state));
+                moveSource = "solver";
+                return solvedMove;
+            }
+        }
+
+        TreeNode reusableRoot = treeReuse ? findReusableRoot(state) : null;
+        replaceRoot(reusableRoot != null ? reusableRoot : newRoot(state));
+        if (isOverNodeBudget()) pruneTree();
+        useVirtualLoss = threads > 1;
+        moveSource = "search";
+
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = startNanos + timeBudgetNanos;
+        remainingIterations.set(maxIterations);
+
+        // A stop requested before the iterations were set would otherwise be overwritten
+        if (stopRequested) remainingIterations.set(0);
 
-        while (--maxIterations > 0) {
-            TreeNode selected = select();
-            TreeNode expanded = expand(selected);
-            double simulationResult = simulate(expanded);
-            backpropagate(expanded, simulationResult);
+        if (threads == 1) {
+            search(context);
+        } else {
+            searchInParallel();
         }
 
         // System.out.println(stateHandler.getAvailableMoves(root.getState()));
 
-        List<TreeNode> bestChildren = root.getChildren();
-        TreeNode bestChild = bestChildren.stream().max(Comparator.comparingInt(TreeNode::getVisits)).orElse(null);
+        int bestMove = getBestMove(root);
+
+        // A search stopped before its first iteration has no children, it still has to return a valid move
+        long validMoveMask = stateHandler.isTerminal(state) ? 0 : stateHandler.getValidMoveMask(state);
+        if (bestMove < 0 && validMoveMask != 0) bestMove = Long.numberOfTrailingZeros(validMoveMask);
+        return bestMove;
+    }
+
+    private TreeNode newRoot(State state) {
+        return new TreeNode(new State(state), null, stateHandler, freeList);
+    }
+
+    /**
+     * Makes the given node the root and recycles the rest of the previous tree.
+     */
+    private void replaceRoot(TreeNode newRoot) {
+        TreeNode previousRoot = root;
+        newRoot.detach();
+        root = newRoot;
+
+        // Nothing outside the new root is reachable anymore, so its nodes can build new children
+        if (freeList != null && previousRoot != null && previousRoot != newRoot) {
+            nodesRecycled.add(previousRoot.recycleExcept(newRoot));
+        }
+        liveNodes.reset();
+        liveNodes.add(countNodes(newRoot));
+    }
+
+    private static long countNodes(TreeNode node) {
+        long count = 1;
+        for (TreeNode child : node.getChildren()) count += countNodes(child);
+        return count;
+    }
+
+    private boolean isOverNodeBudget() {
+        return nodeBudget > 0 && liveNodes.sum() >= nodeBudget;
+    }
+
+    /**
+     * Cuts off the subtrees of the least visited nodes until the tree is well below the node budget.
+     * <p>
+     * Must only be called while no other thread is searching the tree.
+     */
+    private void pruneTree() {
+        List<TreeNode> expandedNodes = new ArrayList<>();
+        for (TreeNode child : root.getChildren()) collectExpanded(child, expandedNodes);
+        expandedNodes.sort(Comparator.comparingInt(TreeNode::getVisits));
+
+        long targetNodes = (long) (nodeBudget * PRUNE_TARGET);
+        for (TreeNode node : expandedNodes) {
+            if (liveNodes.sum() <= targetNodes) break;
+
+            // Skips nodes already cut off together with an ancestor of equal visits
+            if (!node.isExpanded()) continue;
+
+            int recycled = node.collapse();
+            liveNodes.add(-recycled);
+            nodesRecycled.add(recycled);
+        }
+    }
+
+    private static void collectExpanded(TreeNode node, List<TreeNode> expandedNodes) {
+        if (!node.isExpanded()) return;
+
+        expandedNodes.add(node);
+        for (TreeNode child : node.getChildren()) collectExpanded(child, expandedNodes);
+    }
+
+    private void startSearch(State state, int maxIterations, long timeBudgetNanos) {
+        completedIterations.reset();
+        completedPlayouts.reset();
+        nodesCreated.reset();
+        nodesRecycled.reset();
+        maxDepth.reset();
+
+        searchStartNanos = System.nanoTime();
+        lastProgressNanos = searchStartNanos;
+        searching = true;
+
+        SearchStartEvent event = new SearchStartEvent();
+        if (event.shouldCommit()) {
+            event.threads = threads;
+            event.maxIterations = maxIterations;
+            event.timeBudget = timeBudgetNanos;
+            event.emptySquares = EndgameSolver.countEmptySquares(state);
+            event.commit();
+        }
+    }
+
+    private void commitProgressEvent() {
+        SearchProgressEvent event = new SearchProgressEvent();
+        if (!event.shouldCommit()) return;
+
+        SearchStats stats = getSearchStats();
+        event.iterations = stats.getIterations();
+        event.playoutsPerSecond = stats.getPlayoutsPerSecond();
+        event.nodesCreated = stats.getNodesCreated();
+        event.maxDepth = stats.getMaxDepth();
+        event.bestMove = getBestMoveSoFar();
+        event.commit();
+    }
+
+    private void commitEndEvent(SearchEndEvent event, int move) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        SearchStats stats = getSearchStats();
+        event.source = moveSource;
+        event.iterations = stats.getIterations();
+        event.playouts = stats.getPlayouts();
+        event.playoutsPerSecond = stats.getPlayoutsPerSecond();
+        event.nodesCreated = stats.getNodesCreated();
+        event.treeNodes = stats.getTreeNodes();
+        event.nodesRecycled = stats.getNodesRecycled();
+        event.estimatedMemory = stats.getEstimatedMemoryBytes();
+        event.maxDepth = stats.getMaxDepth();
+        event.bestMove = move;
+        event.principalVariation = Arrays.toString(stats.getPrincipalVariation());
+        event.rootVisits = formatRootVisits(stats.getRootStatistics());
+        event.commit();
+    }
+
+    private static String formatRootVisits(MoveStatistics statistics) {
+        List<Integer> moves = new ArrayList<>();
+        for (int move = 0; move < 49; move++) {
+            if (statistics.getVisits(move) > 0) moves.add(move);
+        }
+        moves.sort((a, b) -> Long.compare(statistics.getVisits(b), statistics.getVisits(a)));
+
+        StringBuilder visits = new StringBuilder();
+        for (int move : moves) {
+            if (!visits.isEmpty()) visits.append(' ');
+            visits.append(move).append(':').append(statistics.getVisits(move));
+        }
+        return visits.toString();
+    }
+
+    /**
+     * Takes a snapshot of the current or last search.
+     * <p>
+     * Can be called from another thread while {@link #findBestMove(State, int)} is running.
+     * The counters are cheap to keep, but the snapshot walks the root children and the
+     * principal variation, so it should not be taken more often than a few times a second.
+     *
+     * @return the statistics of the search so far
+     */
+    public SearchStats getSearchStats() {
+        boolean running = searching;
+        long elapsedNanos = (running ? System.nanoTime() : searchEndNanos) - searchStartNanos;
+
+        long treeNodes = liveNodes.sum();
+        long freeNodes = freeList == null ? 0 : freeList.size();
+
+        return new SearchStats(running, elapsedNanos, completedIterations.sum(), completedPlayouts.sum(),
+                nodesCreated.sum(), treeNodes, nodesRecycled.sum(), (treeNodes + freeNodes) * ESTIMATED_NODE_BYTES,
+                (int) maxDepth.get(), getRootStatistics(), getPrincipalVariation());
+    }
+
+    // Follows the most visited child from the root
+    private int[] getPrincipalVariation() {
+        int[] moves = new int[PRINCIPAL_VARIATION_LENGTH];
+        int length = 0;
+
+        TreeNode node = root;
+        while (node != null && length < moves.length) {
+            TreeNode bestChild = null;
+            for (TreeNode child : node.getChildren()) {
+                if (bestChild == null || child.getVisits() > bestChild.getVisits()) bestChild = child;
+            }
+            if (bestChild == null) break;
+
+            moves[length++] = bestChild.getState().getLastMove();
+            node = bestChild;
+        }
+        return Arrays.copyOf(moves, length);
+    }
+
+    /**
+     * Retrieves the best move of the running search.
+     * <p>
+     * Can be called from another thread while {@link #findBestMove(State, int)} is
+     * running, e.g. to enforce a hard latency limit together with {@link #stop()}.
+     * After the search has finished it returns the move the search has returned.
+     *
+     * @return the most visited move from the root so far, or -1 if there is none yet
+     */
+    public int getBestMoveSoFar() {
+        TreeNode currentRoot = root;
+        return currentRoot == null ? -1 : getBestMove(currentRoot);
+    }
+
+    /**
+     * Stops the running search.
+     * <p>
+     * Searching threads finish their current iteration, after which
+     * {@code findBestMove} returns the best move found so far. An endgame solver still
+     * working on the position gives up within a few thousand nodes, and the search
+     * returns the best move of the reused tree, or any valid move. The stop is kept until
+     * the search has ended, so it also stops a search that has been submitted with
+     * {@link #findBestMoveAsync(State, int, Executor)} or has entered {@code findBestMove}
+     * but not started iterating yet. Without such a search this does nothing, so a
+     * late stop cannot cut the next search short.
+     */
+    public void stop() {
+        synchronized (stopLock) {
+            if (activeSearches == 0) return;
+            stopRequested = true;
+        }
+        remainingIterations.set(0);
+    }
+
+    /**
+     * Looks for the given position among the previous root, its children and grandchildren.
+     *
+     * @param state the position about to be searched
+     * @return the node of the previous tree holding the position, or null if there is none
+     */
+    private TreeNode findReusableRoot(State state) {
+        TreeNode previousRoot = root;
+        if (previousRoot == null) return null;
+        if (previousRoot.getState().equals(state)) return previousRoot;
+
+        for (TreeNode child : previousRoot.getChildren()) {
+            if (child.getState().equals(state)) return child;
+
+            for (TreeNode grandchild : child.getChildren()) {
+                // Comparing the last move first skips the full comparison for all but one grandchild
+                if (grandchild.getState().getLastMove() == state.getLastMove() && grandchild.getState().equals(state)) {
+                    return grandchild;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the move to play from the root.
+     * <p>
+     * A move proven to win is played right away and a move proven to lose only when
+     * there is nothing else, otherwise the most visited move is played.
+     */
+    private static int getBestMove(TreeNode root) {
+        Player player = root.getState().getNextPlayer();
+
+        TreeNode bestChild = null;
+        int bestRank = -1;
+        for (TreeNode child : root.getChildren()) {
+            int rank = proofRank(child, player);
+            if (rank > bestRank || rank == bestRank && child.getVisits() > bestChild.getVisits()) {
+                bestChild = child;
+                bestRank = rank;
+            }
+        }
 
         if (bestChild == null) {
-            return -1; // if there is no children that means that no valid move, so indicate that with -1
+            return -1; // no move has been searched yet, or there is no valid move
         }
 
-        int bestMove = bestChild.getState().getLastMove();
-        return bestMove;
+        return bestChild.getState().getLastMove();
+    }
+
+    private static int proofRank(TreeNode node, Player player) {
+        if (node.isProvenWin(player)) return 2;
+        if (node.isProvenWin(player == Player.BLUE ? Player.PINK : Player.BLUE)) return 0;
+        return 1;
+    }
+
+    private void search(SearchContext context) {
+        int iteration = 0;
+
+        // Only the calling thread reports progress
+        boolean reportsProgress = context == this.context && PROGRESS_EVENT_TYPE.isEnabled();
+
+        // Once the outcome of the root is proven, more iterations cannot change the move
+        while (!root.isProven() && remainingIterations.decrementAndGet() > 0) {
+            iterate(context);
+
+            // Reading the clock is not free, so it is only done every few hundred iterations
+            if ((hasDeadline || reportsProgress) && (++iteration & (CLOCK_CHECK_INTERVAL - 1)) == 0) {
+                long now = System.nanoTime();
+                if (hasDeadline && now - deadlineNanos >= 0) stop();
+
+                if (reportsProgress && now - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgressNanos = now;
+                    commitProgressEvent();
+                }
+            }
+        }
+    }
+
+    private void iterate(SearchContext context) {
+        // Other threads could be inside the subtrees being cut off, so only a lone thread prunes
+        if (threads == 1 && isOverNodeBudget()) pruneTree();
+
+        TreeNode selected = select();
+        TreeNode expanded = expand(selected, context);
+        double simulationResult = simulate(expanded, context);
+        backpropagate(expanded, simulationResult, leafPlayouts, context);
+        completedIterations.increment();
+    }
+
+    private void searchInParallel() {
+        // A root is only expanded once it has been simulated, until then every thread would simulate it
+        if (!root.isSimulated() && remainingIterations.decrementAndGet() > 0) iterate(context);
+
+        List<Future<?>> futures = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            RandomGenerator workerRandom = new SplittableRandom(context.random.nextLong());
+            SearchContext workerContext = new SearchContext(workerRandom, leafPlayouts, createBatchEngine(workerRandom));
+            futures.add(executor.submit(() -> search(workerContext)));
+        }
+
+        try {
+            search(context);
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the search threads", e);
+        } catch (ExecutionException e) {
+            stop();
+            throw new IllegalStateException("One of the search threads has failed", e.getCause());
+        }
     }
 
     /**
@@ -59,56 +855,323 @@ public class MonteCarloTreeSearch {
      * <p>
      * This method starts at the root node and traverses the tree by repeatedly
      * selecting the best child node (e.g., based on a selection strategy like UCT)
-     * until a leaf node or an expandable node is reached.
+     * until a leaf node or an expandable node is reached. A node with untried moves
+     * is expandable, unless the tree is over its node budget and cannot grow.
      *
      * @return the selected TreeNode for expansion or simulation
      */
     private TreeNode select() {
-        TreeNode node = root;
-        while (node.hasChildren()) {
-            node = node.getBestChild();
+        if (useVirtualLoss) root.addVirtualLoss(LOSS_REWARD);
+        return select(root);
+    }
+
+    /**
+     * Goes on selecting from the given node, whose virtual loss is already counted.
+     */
+    private TreeNode select(TreeNode node) {
+        while (node.hasChildren() && (!node.hasUntriedMoves() || isOverNodeBudget())) {
+            if (isWidening()) widen(node, childLimit(node));
+
+            TreeNode bestChild;
+            if (transpositionTable != null) {
+                bestChild = node.getBestChild(transpositionTable);
+            } else if (movePrior != null) {
+                bestChild = node.getBestPuctChild(puctExploration);
+            } else if (raveEquivalence > 0) {
+                bestChild = node.getBestChild(raveEquivalence);
+            } else {
+                bestChild = node.getBestChild();
+            }
+
+            if (bestChild == null) {
+                // All children so far are proven, so the next move in prior order is searched instead
+                if (movePrior != null && widen(node, node.getChildren().size() + 1)) continue;
+
+                // Otherwise another thread has proven all children since this node was selected
+                break;
+            }
+
+            node = bestChild;
+            if (useVirtualLoss) node.addVirtualLoss(LOSS_REWARD);
         }
+
+        // Every move below the root has added one stone
+        maxDepth.accumulate(Long.bitCount(node.getState().getCombinedBitboard()) - Long.bitCount(root.getState().getCombinedBitboard()));
         return node;
     }
 
-    private TreeNode expand(TreeNode node) {
-        if (node.isSimulated() && !stateHandler.isTerminal(node.getState())) {
-            node.expand();
-            return node.getRandomChild();
+    private TreeNode expand(TreeNode node, SearchContext context) {
+        // With virtual loss the visit of the current selection is already counted
+        int simulatedVisits = useVirtualLoss ? 1 : 0;
+
+        if (node.getVisits() <= simulatedVisits || stateHandler.isTerminal(node.getState()) || isOverNodeBudget()) {
+            return node;
         }
-        return node;
+        if (movePrior != null) return expandWithPrior(node, context);
+
+        if (node.expand() && raveEquivalence > 0) node.enableAmaf();
+
+        // Another thread has taken the last untried move since this node was selected
+        TreeNode child = node.expandChild(context.random);
+        if (child == null) return selectBelow(node, context);
+
+        nodesCreated.increment();
+        liveNodes.increment();
+
+        // A winning move proves the node without simulating it
+        if (node.updateProof()) return node;
+
+        if (useVirtualLoss) child.addVirtualLoss(LOSS_REWARD);
+        return child;
     }
 
-    private double simulate(TreeNode node) {
-        State deepCopy = new State(node.getState());
-        while (!stateHandler.isTerminal(deepCopy)) {
-            stateHandler.performRandomMove(deepCopy);
+    private TreeNode expandWithPrior(TreeNode node, SearchContext context) {
+        // Another thread has expanded the node since it was selected
+        if (!node.expand(movePrior, isWidening() ? childLimit(node) : Integer.MAX_VALUE)) return selectBelow(node, context);
+        if (!node.hasChildren()) return node;
+
+        nodesCreated.add(node.getChildren().size());
+        liveNodes.add(node.getChildren().size());
+        if (raveEquivalence > 0) node.enableAmaf();
+
+        // A winning move among the new children proves the node without simulating it
+        if (node.updateProof()) return node;
+
+        TreeNode child = node.getBestPuctChild(puctExploration);
+
+        // Widening has only added proven draws so far, so the node itself is simulated
+        if (child == null) return node;
+
+        if (useVirtualLoss) child.addVirtualLoss(LOSS_REWARD);
+        return child;
+    }
+
+    /**
+     * Goes on with the selection below a node that has been fully expanded by another thread,
+     * so the node is not simulated a second time.
+     */
+    private TreeNode selectBelow(TreeNode node, SearchContext context) {
+        TreeNode selected = select(node);
+        return selected == node ? node : expand(selected, context);
+    }
+
+    private boolean widen(TreeNode node, int width) {
+        if (isOverNodeBudget()) return false;
+
+        int childCount = node.getChildren().size();
+        if (!node.widen(width)) return false;
+
+        nodesCreated.add(node.getChildren().size() - childCount);
+        liveNodes.add(node.getChildren().size() - childCount);
+        return true;
+    }
+
+    private boolean isWidening() {
+        return movePrior != null && wideningCoefficient > 0;
+    }
+
+    private int childLimit(TreeNode node) {
+        return (int) Math.ceil(wideningCoefficient * Math.pow(node.getVisits() + 1, wideningExponent));
+    }
+
+    /**
+     * Plays out the given node.
+     *
+     * @return the summed outcome of all playouts run from the node, from PINK's perspective
+     */
+    private double simulate(TreeNode node, SearchContext context) {
+        if (node.isProven()) return leafPlayouts * provenOutcome(node);
+        completedPlayouts.add(leafPlayouts);
+        if (context.batchEngine != null) return batchPlayout(node.getState(), context);
+        if (leafPlayouts == 1) return playout(node.getState(), context, 0);
+
+        List<Future<Double>> futures = new ArrayList<>(leafPlayouts - 1);
+        for (int i = 1; i < leafPlayouts; i++) {
+            int playout = i;
+            futures.add(leafExecutor.submit(() -> playout(node.getState(), context, playout)));
+        }
+
+        double simulationResult = playout(node.getState(), context, 0);
+        try {
+            for (Future<Double> future : futures) simulationResult += future.get();
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the leaf playouts", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("One of the leaf playouts has failed", e.getCause());
+        }
+        return simulationResult;
+    }
+
+    private double batchPlayout(State state, SearchContext context) {
+        for (int playout = 0; playout < leafPlayouts; playout++) context.playoutStates[playout].copyFrom(state);
+        context.batchEngine.playout(context.playoutStates, leafPlayouts);
+
+        double simulationResult = 0;
+        for (int playout = 0; playout < leafPlayouts; playout++) {
+            simulationResult += outcome(stateHandler, context.playoutStates[playout]);
         }
+        return simulationResult;
+    }
 
-        // TODO: This could be further optimized (not urgent)
-        int outcome = (stateHandler.isDraw(node.getState()) ? 0 : (
-                /*
-                Returning -1 for BLUE since for the current setup human player is blue and pink is mcts agent
+    private double playout(State state, SearchContext context, int playout) {
+        State playoutState = context.playoutStates[playout];
+        playoutState.copyFrom(state);
+        stateHandler.playout(playoutState, context.randoms[playout], playoutPolicy);
+        return outcome(stateHandler, playoutState);
+    }
 
-                Trying to punish mcts agent for loosing by doing -20 from score
-                 */
-                stateHandler.hasWon(node.getState(), Player.BLUE) ? -1 : 20
-        ));
+    /**
+     * Scores a finished game from PINK's perspective.
+     * <p>
+     * Wins and losses score the same with opposite signs, so the score from BLUE's
+     * perspective is the negated score, see {@link #perspective(double, Player)}.
+     *
+     * @param stateHandler the StateHandler used to check for a winner
+     * @param state        the final state of a playout
+     * @return the score of the game, 0 if nobody has won
+     */
+    static double outcome(StateHandler stateHandler, State state) {
+        if (stateHandler.hasWon(state, Player.BLUE)) return LOSS_REWARD;
+        if (stateHandler.hasWon(state, Player.PINK)) return WIN_REWARD;
+        return DRAW_REWARD;
+    }
+
+    /**
+     * Turns a score from PINK's perspective into the score of the given player.
+     */
+    static double perspective(double pinkScore, Player player) {
+        return player == Player.PINK ? pinkScore : -pinkScore;
+    }
 
-        return outcome;
+    /**
+     * Scores the proven outcome of a node the same way as a finished game, see {@link #outcome(StateHandler, State)}.
+     */
+    private static double provenOutcome(TreeNode node) {
+        if (node.isProvenWin(Player.BLUE)) return LOSS_REWARD;
+        if (node.isProvenWin(Player.PINK)) return WIN_REWARD;
+        return DRAW_REWARD;
     }
 
-    private void backpropagate(TreeNode node, double simulationResult) {
+    /**
+     * Adds the simulation result to every node from the given one up to the root.
+     * <p>
+     * When the simulated node has a proven outcome, each parent on the way up is
+     * checked for being proven as well, until a parent cannot be proven yet.
+     * With RAVE enabled, the finished playouts also update the AMAF statistics.
+     * <p>
+     * A node stores its value from the perspective of the player who has made the move
+     * leading to it, as that player chooses between it and its siblings.
+     *
+     * @param simulationResult the summed outcome of the playouts from PINK's perspective
+     */
+    private void backpropagate(TreeNode node, double simulationResult, int playouts, SearchContext context) {
+        boolean proving = node.isProven();
+
+        // Proven nodes are not played out, so there are no finished games to learn from
+        boolean updateAmaf = raveEquivalence > 0 && !proving;
+
         while (node != null) {
-            node.incrementVisits();
-            node.addValue(simulationResult);
-            node = node.getParent();
+            if (updateAmaf) updateAmaf(node, context);
+
+            // The next player of the node is the opponent of the player who has moved into it
+            double nodeResult = -perspective(simulationResult, node.getState().getNextPlayer());
+
+            if (useVirtualLoss) {
+                // One visit was counted during selection, replace its virtual loss with the result
+                node.addVisits(playouts - 1);
+                node.addValue(nodeResult - LOSS_REWARD);
+            } else {
+                node.addVisits(playouts);
+                node.addValue(nodeResult);
+            }
+            if (transpositionTable != null) {
+                transpositionTable.add(TranspositionTable.key(node.getState()), playouts, nodeResult);
+            }
+
+            TreeNode parent = node.getParent();
+            if (proving && parent != null) proving = parent.updateProof();
+            node = parent;
         }
     }
 
 
-    // Getters
+    private void updateAmaf(TreeNode node, SearchContext context) {
+        State nodeState = node.getState();
+        Player player = nodeState.getNextPlayer();
+
+        for (int playout = 0; playout < leafPlayouts; playout++) {
+            State finalState = context.playoutStates[playout];
+
+            // Squares taken by the player to move since this node, in the tree or in the playout
+            long playedSquares = finalState.getBitboard(player) & ~nodeState.getBitboard(player);
+            node.addAmaf(playedSquares, perspective(outcome(stateHandler, finalState), player));
+        }
+    }
+
+    /**
+     * Collects the visits and values of the root children of the last search.
+     *
+     * @return the statistics of every move searched from the root
+     */
+    public MoveStatistics getRootStatistics() {
+        MoveStatistics statistics = new MoveStatistics();
+        if (root == null) return statistics;
+
+        for (TreeNode child : root.getChildren()) {
+            statistics.add(child.getState().getLastMove(), child.getVisits(), child.getValue());
+        }
+        return statistics;
+    }
+
+    /**
+     * Retrieves the root of the last search.
+     *
+     * @return the root node, or {@code null} if no search has been run
+     */
+    public TreeNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Retrieves the number of iterations the current or last search has finished.
+     * <p>
+     * Can be called from another thread while a search is running. A position
+     * solved by the endgame solver counts no iterations.
+     *
+     * @return the iterations finished by all searching threads
+     */
     public int getIterations() {
-        return iterations;
+        // Every iteration takes one of the at most Integer.MAX_VALUE iterations of the search
+        return (int) completedIterations.sum();
+    }
+
+    /**
+     * Per-thread search data, so threads sharing a tree do not share random generators or scratch states.
+     */
+    private static final class SearchContext {
+
+        private final RandomGenerator random;
+
+        // Scratch state and generator per leaf playout, so simulations do not allocate
+        private final State[] playoutStates;
+        private final RandomGenerator[] randoms;
+
+        // Plays the leaf playouts lane-wise, null unless batched playouts are enabled
+        private final BatchPlayout batchEngine;
+
+        private SearchContext(RandomGenerator random, int playouts, BatchPlayout batchEngine) {
+            this.random = random;
+            this.batchEngine = batchEngine;
+            this.playoutStates = new State[playouts];
+            this.randoms = new RandomGenerator[playouts];
+
+            for (int i = 0; i < playouts; i++) {
+                playoutStates[i] = new State(Player.BLUE);
+                randoms[i] = i == 0 ? random : new SplittableRandom(random.nextLong());
+            }
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.State;
+
+/**
+ * Heuristic estimate of how promising a move is before it has been searched.
+ * <p>
+ * PUCT selection weighs the exploration of every child by the prior of its move,
+ * and progressive widening adds the children of a node in the order of their priors.
+ */
+@FunctionalInterface
+public interface MovePrior {
+
+    /**
+     * Scores a valid move of a position.
+     * <p>
+     * Only the relative weights matter, as the weights of all moves of a position
+     * are normalized to sum to 1.
+     *
+     * @param state  the position before the move, the move is played by its next player
+     * @param square the square of the move (0-48)
+     * @return a positive weight, higher for more promising moves
+     */
+    double weight(State state, int square);
+}
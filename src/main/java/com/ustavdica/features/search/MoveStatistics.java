@@ -0,0 +1,83 @@
+package com.ustavdica.features.search;
+
+/**
+ * Accumulated visits and values per move, indexed by square (0-48).
+ * <p>
+ * Used to report what a search found for each root move, and to merge the
+ * results of several independent searches of the same position.
+ */
+public class MoveStatistics {
+
+    private final long[] visits;
+    private final double[] values;
+
+    public MoveStatistics() {
+        this.visits = new long[49];
+        this.values = new double[49];
+    }
+
+    /**
+     * Adds the given visits and value to the statistics of a move.
+     *
+     * @param move   the square of the move (0-48)
+     * @param visits the number of visits to add
+     * @param value  the accumulated value to add
+     */
+    public void add(int move, long visits, double value) {
+        this.visits[move] += visits;
+        this.values[move] += value;
+    }
+
+    /**
+     * Merges the statistics of another search into this one.
+     *
+     * @param other the statistics to add
+     */
+    public void merge(MoveStatistics other) {
+        for (int move = 0; move < 49; move++) {
+            add(move, other.visits[move], other.values[move]);
+        }
+    }
+
+    /**
+     * Retrieves the move with the most visits.
+     *
+     * @return the most visited move, or -1 if no move has been visited
+     */
+    public int getBestMove() {
+        int bestMove = -1;
+        for (int move = 0; move < 49; move++) {
+            if (visits[move] > 0 && (bestMove == -1 || visits[move] > visits[bestMove])) bestMove = move;
+        }
+        return bestMove;
+    }
+
+    public long getVisits(int move) {
+        return visits[move];
+    }
+
+    public double getValue(int move) {
+        return values[move];
+    }
+
+    /**
+     * Retrieves the average value of a move.
+     *
+     * @param move the square of the move (0-48)
+     * @return the value per visit, or 0 if the move has not been visited
+     */
+    public double getMeanValue(int move) {
+        return visits[move] == 0 ? 0 : values[move] / visits[move];
+    }
+
+    /**
+     * Retrieves the number of visits summed over all moves.
+     *
+     * @return the total number of visits
+     */
+    public long getTotalVisits() {
+        long total = 0;
+        for (long moveVisits : visits) total += moveVisits;
+        return total;
+    }
+}
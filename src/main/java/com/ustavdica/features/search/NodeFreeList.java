@@ -0,0 +1,48 @@
+package com.ustavdica.features.search;
+
+import java.util.ArrayDeque;
+
+/**
+ * Free list of {@link TreeNode}s cut off from the tree, reused for new children.
+ * <p>
+ * Nodes are added while no thread is searching the tree, or by the only searching
+ * thread, and taken by any number of expanding threads. A reused node keeps its
+ * {@link com.ustavdica.features.state.State} object, so neither the node nor its
+ * state is allocated again.
+ */
+final class NodeFreeList {
+
+    private final ArrayDeque<TreeNode> freeNodes = new ArrayDeque<>();
+
+    // Read without the lock, so expanding threads skip it while the free list is empty
+    private volatile int size;
+
+    /**
+     * Takes a node from the free list.
+     *
+     * @return a node to reset and reuse, or null if the free list is empty
+     */
+    TreeNode poll() {
+        if (size == 0) return null;
+
+        synchronized (this) {
+            TreeNode node = freeNodes.poll();
+            size = freeNodes.size();
+            return node;
+        }
+    }
+
+    /**
+     * Adds a node cut off from the tree to the free list.
+     *
+     * @param node a node no longer reachable from the root
+     */
+    synchronized void add(TreeNode node) {
+        freeNodes.push(node);
+        size = freeNodes.size();
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ustavdica.features.search;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for search tree nodes.
+ * <p>
+ * Every node is an int id indexing into parallel primitive arrays holding its
+ * visits, value, move, parent and children. Children of a node are always
+ * allocated next to each other, so a node only needs the id of its first child
+ * and the number of children. Nodes are never freed one by one, the whole pool
+ * is cleared with {@link #reset()}, which keeps the arrays for the next search.
+ */
+public class NodePool {
+
+    /**
+     * Id used as the parent of the root node.
+     */
+    public static final int NONE = -1;
+
+    private int size;
+
+    private int[] visits;
+    private double[] values;
+    private byte[] moves;
+    private int[] parents;
+    private int[] firstChildren;
+    private byte[] childCounts;
+
+    public NodePool(int initialCapacity) {
+        this.visits = new int[initialCapacity];
+        this.values = new double[initialCapacity];
+        this.moves = new byte[initialCapacity];
+        this.parents = new int[initialCapacity];
+        this.firstChildren = new int[initialCapacity];
+        this.childCounts = new byte[initialCapacity];
+    }
+
+    /**
+     * Discards all nodes of the pool.
+     * <p>
+     * This only resets the node counter, the backing arrays are kept so the
+     * next search does not have to allocate them again.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Allocates a root node, a node without parent and without move.
+     *
+     * @return the id of the root node
+     */
+    public int allocateRoot() {
+        ensureCapacity(size + 1);
+        return initialize(size++, NONE, -1);
+    }
+
+    /**
+     * Allocates one child for every set bit of the given move mask.
+     *
+     * @param parent   the id of the node being expanded
+     * @param moveMask the bitmask of moves, one child is created per set bit
+     * @return the id of the first child, the rest follow it consecutively
+     */
+    public int expand(int parent, long moveMask) {
+        int count = Long.bitCount(moveMask);
+        ensureCapacity(size + count);
+
+        int first = size;
+        while (moveMask != 0) {
+            initialize(size++, parent, Long.numberOfTrailingZeros(moveMask));
+            moveMask &= moveMask - 1;
+        }
+
+        firstChildren[parent] = first;
+        childCounts[parent] = (byte) count;
+        return first;
+    }
+
+    private int initialize(int node, int parent, int move) {
+        visits[node] = 0;
+        values[node] = 0;
+        moves[node] = (byte) move;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        childCounts[node] = 0;
+        return node;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= visits.length) return;
+
+        int newCapacity = Math.max(capacity, visits.length * 2);
+        visits = Arrays.copyOf(visits, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+        moves = Arrays.copyOf(moves, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+        firstChildren = Arrays.copyOf(firstChildren, newCapacity);
+        childCounts = Arrays.copyOf(childCounts, newCapacity);
+    }
+
+    public void update(int node, double value) {
+        visits[node]++;
+        values[node] += value;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getVisits(int node) {
+        return visits[node];
+    }
+
+    public double getValue(int node) {
+        return values[node];
+    }
+
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+}
@@ -0,0 +1,75 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+
+import java.util.Arrays;
+
+/**
+ * Prior preferring moves on open lines of four.
+ * <p>
+ * Every line of four through the square counts when only one player has stones on it.
+ * A line still open for the player to move adds (1 + own stones)², so extending
+ * longer lines weighs more. A line taken by the opponent adds (opponent stones)²,
+ * which makes blocking a line of two or three attractive as well.
+ */
+public class OpenLinePrior implements MovePrior {
+
+    private static final int BOARD_SIZE = 7;
+
+    // Row and column steps of the horizontal, vertical and both diagonal lines
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    // Masks of all lines of four through every square
+    private static final long[][] LINES_THROUGH_SQUARE = createLinesThroughSquare();
+
+    private static long[][] createLinesThroughSquare() {
+        int[] lineCounts = new int[BOARD_SIZE * BOARD_SIZE];
+        long[][] lines = new long[BOARD_SIZE * BOARD_SIZE][16];
+
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                for (int[] direction : DIRECTIONS) {
+                    int endRow = row + 3 * direction[0];
+                    int endCol = col + 3 * direction[1];
+                    if (endRow >= BOARD_SIZE || endCol < 0 || endCol >= BOARD_SIZE) continue;
+
+                    long line = 0L;
+                    for (int i = 0; i < 4; i++) {
+                        line |= 1L << ((row + i * direction[0]) * BOARD_SIZE + col + i * direction[1]);
+                    }
+                    for (long squares = line; squares != 0; squares &= squares - 1) {
+                        int square = Long.numberOfTrailingZeros(squares);
+                        lines[square][lineCounts[square]++] = line;
+                    }
+                }
+            }
+        }
+
+        long[][] linesThroughSquare = new long[lines.length][];
+        for (int square = 0; square < lines.length; square++) {
+            linesThroughSquare[square] = Arrays.copyOf(lines[square], lineCounts[square]);
+        }
+        return linesThroughSquare;
+    }
+
+    @Override
+    public double weight(State state, int square) {
+        Player player = state.getNextPlayer();
+        long own = state.getBitboard(player);
+        long opponent = state.getBitboard(player == Player.BLUE ? Player.PINK : Player.BLUE);
+
+        double weight = 1;
+        for (long line : LINES_THROUGH_SQUARE[square]) {
+            int ownStones = Long.bitCount(line & own);
+            int opponentStones = Long.bitCount(line & opponent);
+
+            if (opponentStones == 0) {
+                weight += (1 + ownStones) * (1 + ownStones);
+            } else if (ownStones == 0) {
+                weight += opponentStones * opponentStones;
+            }
+        }
+        return weight;
+    }
+}
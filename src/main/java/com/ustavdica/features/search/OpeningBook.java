@@ -0,0 +1,159 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.State;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only opening book, memory-mapped from a file written by {@link OpeningBookBuilder}.
+ * <p>
+ * The file holds a header followed by fixed-size entries sorted by position key, one
+ * entry per stored move of a position:
+ * <pre>
+ * header: int magic, int version, int entry count
+ * entry:  long key, byte move, int visits, float mean value
+ * </pre>
+ * The key is the Zobrist hash of the position, the mean value is between -1 and 1 from
+ * the perspective of the player to move. Lookups binary search the mapped file, so the
+ * book costs neither startup time nor heap, and the operating system pages in only the
+ * parts that are read. A book can be shared by any number of threads.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x50484F42;
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 12;
+    static final int ENTRY_BYTES = 17;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
+
+    // Entries are 17 bytes, so the fields are read without alignment
+    private static final ValueLayout.OfLong KEY = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(BYTE_ORDER);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(BYTE_ORDER);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(BYTE_ORDER);
+
+    private final MemorySegment segment;
+    private final int entryCount;
+
+    private OpeningBook(MemorySegment segment) {
+        if (segment.byteSize() < HEADER_BYTES || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not an opening book");
+        }
+        if (segment.get(INT, 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported opening book version " + segment.get(INT, 4));
+        }
+
+        this.entryCount = segment.get(INT, 8);
+        if (entryCount < 0 || offset(entryCount) > segment.byteSize()) {
+            throw new IllegalArgumentException("Truncated opening book");
+        }
+        this.segment = segment.asReadOnly();
+    }
+
+    /**
+     * Maps an opening book file into memory.
+     *
+     * @param path the book file
+     * @return the opening book
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid opening book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed, and is unmapped once the book is unreachable
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto()));
+        }
+    }
+
+    /**
+     * Retrieves the stored move with the most visits for a position.
+     *
+     * @param state the position to look up
+     * @return the book move, or -1 if the position is not in the book
+     */
+    public int getBestMove(State state) {
+        int first = findFirst(state.getHash());
+        if (first < 0) return -1;
+
+        int bestMove = -1;
+        int bestVisits = -1;
+        for (int entry = first; entry < entryCount && key(entry) == state.getHash(); entry++) {
+            if (visits(entry) > bestVisits) {
+                bestVisits = visits(entry);
+                bestMove = move(entry);
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Retrieves all stored moves of a position.
+     *
+     * @param state the position to look up
+     * @return the statistics of the stored moves, empty if the position is not in the book
+     */
+    public MoveStatistics getStatistics(State state) {
+        MoveStatistics statistics = new MoveStatistics();
+
+        int first = findFirst(state.getHash());
+        if (first < 0) return statistics;
+
+        for (int entry = first; entry < entryCount && key(entry) == state.getHash(); entry++) {
+            statistics.add(move(entry), visits(entry), (double) visits(entry) * meanValue(entry));
+        }
+        return statistics;
+    }
+
+    // Index of the first entry with the key, or -1 if there is none
+    private int findFirst(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compare(key(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < entryCount && key(low) == key ? low : -1;
+    }
+
+    // Byte offset of an entry, in long arithmetic so books past 2 GB are addressed correctly
+    private static long offset(int entry) {
+        return HEADER_BYTES + (long) entry * ENTRY_BYTES;
+    }
+
+    private long key(int entry) {
+        return segment.get(KEY, offset(entry));
+    }
+
+    private int move(int entry) {
+        return segment.get(ValueLayout.JAVA_BYTE, offset(entry) + 8);
+    }
+
+    private int visits(int entry) {
+        return segment.get(INT, offset(entry) + 9);
+    }
+
+    private float meanValue(int entry) {
+        return segment.get(FLOAT, offset(entry) + 13);
+    }
+
+    /**
+     * Retrieves the number of stored moves over all positions.
+     *
+     * @return the number of entries in the book
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+}
@@ -0,0 +1,169 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Builds an {@link OpeningBook} from long offline searches.
+ * <p>
+ * Starting from the empty board with either player to move, every position is searched
+ * with a large iteration budget and its most visited moves are stored. The builder then
+ * follows the best few moves of every position, for both sides, until the given depth.
+ * Positions reached by several move orders are searched once.
+ * <p>
+ * Usage: {@code OpeningBookBuilder <file> [depth] [width] [iterations]}
+ */
+public class OpeningBookBuilder {
+
+    // Moves of a position searched fewer times than this are left out of the book
+    private static final int MIN_VISITS = 100;
+
+    private final StateHandler stateHandler;
+    private final int iterations;
+
+    private int movesPerPosition = 8;
+
+    // Sorted by key, as in the book file
+    private final Map<Long, MoveStatistics> positions = new TreeMap<>();
+
+    /**
+     * Constructs an OpeningBookBuilder.
+     *
+     * @param stateHandler the StateHandler generating and applying moves
+     * @param iterations   the iteration budget of the search of every position
+     */
+    public OpeningBookBuilder(StateHandler stateHandler, int iterations) {
+        this.stateHandler = stateHandler;
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBookBuilder <file> [depth] [width] [iterations]");
+            System.exit(1);
+        }
+        Path path = Path.of(args[0]);
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 200000;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(StateHandler.getInstance(), iterations);
+        long start = System.nanoTime();
+        for (Player startingPlayer : Player.values()) builder.add(new State(startingPlayer), depth, width);
+        builder.write(path);
+
+        System.out.printf("%d positions, %d entries, %.1fs%n",
+                builder.getPositionCount(), builder.getEntryCount(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Sets the maximum number of moves stored per position.
+     *
+     * @param movesPerPosition the number of most visited moves to keep
+     */
+    public void setMovesPerPosition(int movesPerPosition) {
+        this.movesPerPosition = movesPerPosition;
+    }
+
+    /**
+     * Searches a position and the positions after its best moves.
+     *
+     * @param state the position to start from, it is not modified
+     * @param depth the number of moves to follow from the position, 0 to only search the position itself
+     * @param width the number of best moves followed in every position
+     */
+    public void add(State state, int depth, int width) {
+        if (stateHandler.isTerminal(state)) return;
+
+        MoveStatistics statistics = positions.get(state.getHash());
+        if (statistics == null) {
+            statistics = search(state);
+            positions.put(state.getHash(), statistics);
+        }
+        if (depth == 0) return;
+
+        for (int move : bestMoves(statistics, width)) {
+            State next = new State(state);
+            stateHandler.applyMove(next, move);
+            add(next, depth - 1, width);
+        }
+    }
+
+    private MoveStatistics search(State state) {
+        // Seeded by position, so the same book is built every time
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(stateHandler, new SplittableRandom(state.getHash()));
+        mcts.setTreeReuse(false);
+        mcts.setEndgameThreshold(0);
+        mcts.findBestMove(state, iterations);
+
+        MoveStatistics searched = mcts.getRootStatistics();
+        MoveStatistics kept = new MoveStatistics();
+        for (int move : bestMoves(searched, movesPerPosition)) {
+            if (searched.getVisits(move) >= MIN_VISITS) kept.add(move, searched.getVisits(move), searched.getValue(move));
+        }
+        return kept;
+    }
+
+    // Visited moves, most visited first
+    private static List<Integer> bestMoves(MoveStatistics statistics, int count) {
+        List<Integer> moves = new ArrayList<>();
+        for (int move = 0; move < 49; move++) {
+            if (statistics.getVisits(move) > 0) moves.add(move);
+        }
+        moves.sort((a, b) -> Long.compare(statistics.getVisits(b), statistics.getVisits(a)));
+        return moves.subList(0, Math.min(count, moves.size()));
+    }
+
+    /**
+     * Writes the book file.
+     *
+     * @param path the file to write, it is replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(getEntryCount());
+
+            for (Map.Entry<Long, MoveStatistics> position : positions.entrySet()) {
+                MoveStatistics statistics = position.getValue();
+                for (int move : bestMoves(statistics, movesPerPosition)) {
+                    out.writeLong(position.getKey());
+                    out.writeByte(move);
+                    out.writeInt((int) Math.min(Integer.MAX_VALUE, statistics.getVisits(move)));
+                    out.writeFloat((float) statistics.getMeanValue(move));
+                }
+            }
+        }
+    }
+
+    public int getPositionCount() {
+        return positions.size();
+    }
+
+    /**
+     * Retrieves the number of entries the book file will hold.
+     *
+     * @return the number of stored moves over all positions
+     */
+    public int getEntryCount() {
+        int entries = 0;
+        for (MoveStatistics statistics : positions.values()) entries += bestMoves(statistics, movesPerPosition).size();
+        return entries;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.State;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Searches on the opponent's time.
+ * <p>
+ * After the engine has moved, {@link #start(State)} keeps searching the position in the
+ * background while the opponent thinks. Once the opponent's move arrives, {@link #stop()}
+ * ends that search and the regular search of the new position reuses the subtree below
+ * the opponent's move, so the time spent pondering is not lost. This relies on tree
+ * reuse being enabled on the search.
+ * <p>
+ * The search must not be used by anyone else between {@code start} and {@code stop}.
+ * The iteration limit only ends a pondering search the opponent never answers, the
+ * memory of the tree is bounded by the node budget of the search, see
+ * {@link MonteCarloTreeSearch#setNodeBudget(int)}.
+ */
+public class Ponderer {
+
+    // Ends the search when the opponent takes a very long time
+    private static final int DEFAULT_MAX_ITERATIONS = 2_000_000;
+
+    private final MonteCarloTreeSearch mcts;
+    private final ExecutorService executor;
+    private final int maxIterations;
+
+    private CompletableFuture<Integer> pondering;
+
+    /**
+     * Constructs a Ponderer with the default iteration limit.
+     *
+     * @param mcts     the search to ponder with, the same one that searches the engine's moves
+     * @param executor the executor the pondering search runs on
+     */
+    public Ponderer(MonteCarloTreeSearch mcts, ExecutorService executor) {
+        this(mcts, executor, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Constructs a Ponderer.
+     *
+     * @param mcts          the search to ponder with, the same one that searches the engine's moves
+     * @param executor      the executor the pondering search runs on
+     * @param maxIterations the most iterations a single pondering search runs
+     */
+    public Ponderer(MonteCarloTreeSearch mcts, ExecutorService executor, int maxIterations) {
+        this.mcts = mcts;
+        this.executor = executor;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Starts searching a position in the background, stopping a previous pondering search first.
+     *
+     * @param state the position where the opponent is to move, it is copied
+     */
+    public synchronized void start(State state) {
+        stop();
+
+        pondering = mcts.findBestMoveAsync(state, maxIterations, executor);
+    }
+
+    /**
+     * Stops the pondering search and waits until it has ended.
+     * <p>
+     * Does nothing if no pondering search is running.
+     */
+    public synchronized void stop() {
+        if (pondering == null) return;
+
+        mcts.stop();
+        try {
+            pondering.join();
+        } catch (CompletionException ignored) {
+            // A failed pondering search leaves nothing to reuse, the next search starts a new tree
+        }
+        pondering = null;
+    }
+
+    public synchronized boolean isPondering() {
+        return pondering != null && !pondering.isDone();
+    }
+}
@@ -0,0 +1,165 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte Carlo Tree Search backed by a {@link NodePool} instead of {@link TreeNode} objects.
+ * <p>
+ * Nodes only store their move, the state of a node is rebuilt by replaying the
+ * moves from the root while descending the tree. This way a search does not
+ * allocate anything per node, and the pool is reused between searches.
+ */
+public class PooledMonteCarloTreeSearch {
+
+    private static final double C = Math.sqrt(2);
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final StateHandler stateHandler;
+    private final RandomGenerator random;
+    private final NodePool pool;
+
+    // Scratch states, one for replaying moves from the root and one for playouts
+    private final State rootState;
+    private final State nodeState;
+    private final State playoutState;
+
+    public PooledMonteCarloTreeSearch(StateHandler stateHandler) {
+        this(stateHandler, new SplittableRandom());
+    }
+
+    /**
+     * Constructs the search with its own source of randomness, e.g. a seeded one for reproducible searches.
+     *
+     * @param stateHandler the StateHandler responsible for state-related operations
+     * @param random       the source of randomness used for expansion and playouts
+     */
+    public PooledMonteCarloTreeSearch(StateHandler stateHandler, RandomGenerator random) {
+        this.stateHandler = stateHandler;
+        this.random = random;
+        this.pool = new NodePool(INITIAL_CAPACITY);
+        this.rootState = new State(Player.BLUE);
+        this.nodeState = new State(Player.BLUE);
+        this.playoutState = new State(Player.BLUE);
+    }
+
+    /**
+     * Finds the best move using the Monte Carlo Tree Search (MCTS) algorithm.
+     *
+     * @param state         the state to search from, it is not modified
+     * @param maxIterations the number of iterations to run
+     * @return the best move, or -1 if there is no valid move
+     */
+    public int findBestMove(State state, int maxIterations) {
+
+        pool.reset();
+        rootState.copyFrom(state);
+        int root = pool.allocateRoot();
+
+        while (--maxIterations > 0) {
+            int selected = select(root);
+            int expanded = expand(selected);
+            double simulationResult = simulate();
+            backpropagate(expanded, simulationResult);
+        }
+
+        int bestChild = NodePool.NONE;
+        int first = pool.getFirstChild(root);
+        for (int child = first; child < first + pool.getChildCount(root); child++) {
+            if (bestChild == NodePool.NONE || pool.getVisits(child) > pool.getVisits(bestChild)) {
+                bestChild = child;
+            }
+        }
+
+        return bestChild == NodePool.NONE ? -1 : pool.getMove(bestChild);
+    }
+
+    /**
+     * Descends from the root to a leaf by following the children with the highest UCT value.
+     * <p>
+     * The moves of the visited nodes are replayed on {@code nodeState}, so after this
+     * call it holds the state of the returned node.
+     *
+     * @param root the id of the root node
+     * @return the id of the selected leaf
+     */
+    private int select(int root) {
+        nodeState.copyFrom(rootState);
+
+        int node = root;
+        while (pool.getChildCount(node) > 0) {
+            node = getBestChild(node);
+            stateHandler.applyMoveUnchecked(nodeState, pool.getMove(node));
+        }
+        return node;
+    }
+
+    private int expand(int node) {
+        if (pool.getVisits(node) > 0 && !stateHandler.isTerminal(nodeState)) {
+            long validMoveMask = stateHandler.getValidMoveMask(nodeState);
+            if (validMoveMask == 0) return node;
+
+            int child = pool.expand(node, validMoveMask) + random.nextInt(Long.bitCount(validMoveMask));
+            stateHandler.applyMoveUnchecked(nodeState, pool.getMove(child));
+            return child;
+        }
+        return node;
+    }
+
+    private double simulate() {
+        playoutState.copyFrom(nodeState);
+        stateHandler.playout(playoutState, random);
+        return MonteCarloTreeSearch.outcome(stateHandler, playoutState);
+    }
+
+    /**
+     * Adds the simulation result to every node from the given one up to the root.
+     * <p>
+     * Values are stored from the perspective of the player who has moved into a node,
+     * so the sign of the result flips with every level.
+     *
+     * @param node             the id of the simulated node, whose state is in {@code nodeState}
+     * @param simulationResult the outcome of the playout from PINK's perspective
+     */
+    private void backpropagate(int node, double simulationResult) {
+        double nodeResult = -MonteCarloTreeSearch.perspective(simulationResult, nodeState.getNextPlayer());
+        while (node != NodePool.NONE) {
+            pool.update(node, nodeResult);
+            nodeResult = -nodeResult;
+            node = pool.getParent(node);
+        }
+    }
+
+    private int getBestChild(int node) {
+        double logParentVisits = Math.log(pool.getVisits(node));
+
+        int bestChild = NodePool.NONE;
+        double bestUct = Double.NEGATIVE_INFINITY;
+
+        int first = pool.getFirstChild(node);
+        for (int child = first; child < first + pool.getChildCount(node); child++) {
+            int visits = pool.getVisits(child);
+            if (visits == 0) return child;
+
+            double uct = pool.getValue(child) / visits + C * Math.sqrt(logParentVisits / visits);
+            if (uct > bestUct) {
+                bestUct = uct;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Retrieves the number of nodes created by the last search.
+     *
+     * @return the number of nodes in the pool
+     */
+    public int getNodeCount() {
+        return pool.getSize();
+    }
+}
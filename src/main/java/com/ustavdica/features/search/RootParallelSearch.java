@@ -0,0 +1,88 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Root-parallel Monte Carlo Tree Search.
+ * <p>
+ * Runs several independent {@link MonteCarloTreeSearch} trees of the same position,
+ * each with its own random generator, and merges the statistics of their root
+ * children before choosing a move. The trees share nothing, so the searches
+ * scale with the number of cores without any synchronization.
+ */
+public class RootParallelSearch {
+
+    private final StateHandler stateHandler;
+    private final ExecutorService executor;
+    private final SplittableRandom random;
+
+    private MoveStatistics statistics;
+
+    /**
+     * Constructs a RootParallelSearch running its trees on the given executor.
+     *
+     * @param stateHandler the StateHandler responsible for state-related operations
+     * @param executor     the executor the independent searches are submitted to
+     */
+    public RootParallelSearch(StateHandler stateHandler, ExecutorService executor) {
+        this.stateHandler = stateHandler;
+        this.executor = executor;
+        this.random = new SplittableRandom();
+        this.statistics = new MoveStatistics();
+    }
+
+    /**
+     * Finds the best move by running {@code threads} independent searches in parallel.
+     *
+     * @param state         the state to search from, it is not modified
+     * @param maxIterations the number of iterations run by each tree
+     * @param threads       the number of independent trees
+     * @return the move with the most visits over all trees, or -1 if there is no valid move
+     */
+    public int findBestMove(State state, int maxIterations, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required, got " + threads);
+
+        List<Future<MoveStatistics>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(stateHandler, random.split());
+            State stateCopy = new State(state);
+
+            futures.add(executor.submit(() -> {
+                mcts.findBestMove(stateCopy, maxIterations);
+                return mcts.getRootStatistics();
+            }));
+        }
+
+        MoveStatistics merged = new MoveStatistics();
+        try {
+            for (Future<MoveStatistics> future : futures) merged.merge(future.get());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the parallel searches", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("One of the parallel searches has failed", e.getCause());
+        }
+
+        statistics = merged;
+        return merged.getBestMove();
+    }
+
+    /**
+     * Retrieves the merged root statistics of the last search.
+     *
+     * @return the visits and values per move summed over all trees
+     */
+    public MoveStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ustavdica.features.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event committed when {@link MonteCarloTreeSearch#findBestMove} returns,
+ * its duration spans the whole search.
+ */
+@Name("com.ustavdica.SearchEnd")
+@Label("Search End")
+@Category({"Phantom", "Search"})
+@Description("A move search has finished")
+final class SearchEndEvent extends Event {
+
+    @Label("Source")
+    @Description("Where the move came from: book, solver or search")
+    String source;
+
+    @Label("Iterations")
+    long iterations;
+
+    @Label("Playouts")
+    long playouts;
+
+    @Label("Playouts Per Second")
+    @Frequency
+    double playoutsPerSecond;
+
+    @Label("Nodes Created")
+    @Description("Tree nodes allocated by the search")
+    long nodesCreated;
+
+    @Label("Tree Nodes")
+    long treeNodes;
+
+    @Label("Nodes Recycled")
+    @Description("Tree nodes cut off into the free list to stay within the node budget")
+    long nodesRecycled;
+
+    @Label("Estimated Memory")
+    @DataAmount
+    long estimatedMemory;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Best Move")
+    int bestMove;
+
+    @Label("Principal Variation")
+    String principalVariation;
+
+    @Label("Root Visits")
+    @Description("Visits per root move as move:visits, most visited first")
+    String rootVisits;
+}
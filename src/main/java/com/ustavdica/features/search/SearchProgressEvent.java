@@ -0,0 +1,35 @@
+package com.ustavdica.features.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event committed about once a second while a search is running.
+ */
+@Name("com.ustavdica.SearchProgress")
+@Label("Search Progress")
+@Category({"Phantom", "Search"})
+@Description("Progress of a running move search")
+final class SearchProgressEvent extends Event {
+
+    @Label("Iterations")
+    long iterations;
+
+    @Label("Playouts Per Second")
+    @Frequency
+    double playoutsPerSecond;
+
+    @Label("Nodes Created")
+    @Description("Tree nodes allocated by the search so far")
+    long nodesCreated;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Best Move")
+    int bestMove;
+}
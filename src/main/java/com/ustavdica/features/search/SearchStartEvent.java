@@ -0,0 +1,31 @@
+package com.ustavdica.features.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event committed when {@link MonteCarloTreeSearch#findBestMove} starts.
+ */
+@Name("com.ustavdica.SearchStart")
+@Label("Search Start")
+@Category({"Phantom", "Search"})
+@Description("A move search has started")
+final class SearchStartEvent extends Event {
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Max Iterations")
+    int maxIterations;
+
+    @Label("Time Budget")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeBudget;
+
+    @Label("Empty Squares")
+    int emptySquares;
+}
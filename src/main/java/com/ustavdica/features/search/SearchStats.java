@@ -0,0 +1,126 @@
+package com.ustavdica.features.search;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the progress of a search.
+ * <p>
+ * Taken by {@link MonteCarloTreeSearch#getSearchStats()}, which can be called from another
+ * thread while the search is running. The counters are read one after another without
+ * stopping the search, so they may be a few iterations apart from each other.
+ */
+public class SearchStats {
+
+    private final boolean running;
+    private final long elapsedNanos;
+    private final long iterations;
+    private final long playouts;
+    private final long nodesCreated;
+    private final long treeNodes;
+    private final long nodesRecycled;
+    private final long estimatedMemoryBytes;
+    private final int maxDepth;
+    private final MoveStatistics rootStatistics;
+    private final int[] principalVariation;
+
+    /**
+     * Constructs a SearchStats snapshot.
+     *
+     * @param running              whether the search was still running
+     * @param elapsedNanos         the wall-clock time the search has taken so far
+     * @param iterations           the iterations finished by all threads
+     * @param playouts             the playouts played by all threads, several per iteration with leaf parallelism
+     * @param nodesCreated         the tree nodes created by the search, not counting a reused tree
+     * @param treeNodes            the nodes in the tree, including a reused tree
+     * @param nodesRecycled        the nodes cut off from the tree into the free list by the search
+     * @param estimatedMemoryBytes the estimated heap used by the tree and the free list
+     * @param maxDepth             the deepest selection below the root
+     * @param rootStatistics       the visits and values of the root moves
+     * @param principalVariation   the most visited line of moves from the root
+     */
+    public SearchStats(boolean running, long elapsedNanos, long iterations, long playouts, long nodesCreated,
+                       long treeNodes, long nodesRecycled, long estimatedMemoryBytes,
+                       int maxDepth, MoveStatistics rootStatistics, int[] principalVariation) {
+        this.running = running;
+        this.elapsedNanos = elapsedNanos;
+        this.iterations = iterations;
+        this.playouts = playouts;
+        this.nodesCreated = nodesCreated;
+        this.treeNodes = treeNodes;
+        this.nodesRecycled = nodesRecycled;
+        this.estimatedMemoryBytes = estimatedMemoryBytes;
+        this.maxDepth = maxDepth;
+        this.rootStatistics = rootStatistics;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Retrieves the playout rate of the search.
+     *
+     * @return the playouts per second, or 0 before any time has passed
+     */
+    public double getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : playouts / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Retrieves the iteration rate of the search.
+     *
+     * @return the iterations per second, or 0 before any time has passed
+     */
+    public double getIterationsPerSecond() {
+        return elapsedNanos == 0 ? 0 : iterations / (elapsedNanos / 1e9);
+    }
+
+    // Getters
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public long getNodesCreated() {
+        return nodesCreated;
+    }
+
+    public long getTreeNodes() {
+        return treeNodes;
+    }
+
+    public long getNodesRecycled() {
+        return nodesRecycled;
+    }
+
+    public long getEstimatedMemoryBytes() {
+        return estimatedMemoryBytes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public MoveStatistics getRootStatistics() {
+        return rootStatistics;
+    }
+
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("iterations=%d playouts=%d (%.0f/s) nodes=%d recycled=%d memory=%dKB depth=%d pv=%s",
+                iterations, playouts, getPlayoutsPerSecond(), treeNodes, nodesRecycled, estimatedMemoryBytes / 1024,
+                maxDepth, Arrays.toString(principalVariation));
+    }
+}
@@ -0,0 +1,156 @@
+package com.ustavdica.features.search;
+
+import com.ustavdica.features.state.State;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size table of search statistics keyed by position.
+ * <p>
+ * Tree nodes reached by different move orders share one entry, so their visits and
+ * values accumulate together and the tree effectively becomes a DAG. The table is
+ * organized in buckets of two slots. When both slots of a bucket are taken, the
+ * entry with fewer visits is replaced, keeping the memory bounded while the
+ * well explored positions stay in the table.
+ * <p>
+ * The table is not thread-safe and is meant for single-threaded searches.
+ */
+public class TranspositionTable {
+
+    private static final int BUCKET_SIZE = 2;
+
+    // Key 0 marks an empty slot
+    private static final long EMPTY = 0L;
+
+    private final long[] keys;
+    private final int[] visits;
+    private final double[] values;
+    private final int bucketMask;
+
+    private int entryCount;
+    private long probes;
+    private long hits;
+
+    /**
+     * Constructs a table with room for at least the given number of entries.
+     *
+     * @param capacity the minimum number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        int slots = Math.max(BUCKET_SIZE, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+
+        this.keys = new long[slots];
+        this.visits = new int[slots];
+        this.values = new double[slots];
+        this.bucketMask = slots / BUCKET_SIZE - 1;
+    }
+
+    /**
+     * Retrieves the 64-bit key of a position.
+     * <p>
+     * The key is the Zobrist hash of the state, which covers the stones of both players,
+     * the player to move and the last move, as the last move decides which moves are valid next.
+     *
+     * @param state the position to get the key for
+     * @return the key of the position, never 0
+     */
+    public static long key(State state) {
+        long key = state.getHash();
+        return key == EMPTY ? 1L : key;
+    }
+
+    /**
+     * Looks up the entry of a position.
+     *
+     * @param key the key of the position
+     * @return the slot of the entry, or -1 if the position is not in the table
+     */
+    public int find(long key) {
+        probes++;
+
+        int slot = bucket(key);
+        for (int i = 0; i < BUCKET_SIZE; i++, slot++) {
+            if (keys[slot] == key) {
+                hits++;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds visits and value to the entry of a position, creating the entry if needed.
+     *
+     * @param key    the key of the position
+     * @param visits the number of visits to add
+     * @param value  the value to add
+     */
+    public void add(long key, int visits, double value) {
+        int bucket = bucket(key);
+
+        int replaced = bucket;
+        for (int slot = bucket; slot < bucket + BUCKET_SIZE; slot++) {
+            if (keys[slot] == key) {
+                this.visits[slot] += visits;
+                this.values[slot] += value;
+                return;
+            }
+            if (replacementPriority(slot) < replacementPriority(replaced)) replaced = slot;
+        }
+
+        // Replace the least visited entry of the bucket, or fill an empty slot
+        if (keys[replaced] == EMPTY) entryCount++;
+        keys[replaced] = key;
+        this.visits[replaced] = visits;
+        this.values[replaced] = value;
+    }
+
+    // Empty slots are filled first, otherwise the least visited entry goes
+    private long replacementPriority(int slot) {
+        return keys[slot] == EMPTY ? -1 : visits[slot];
+    }
+
+    private int bucket(long key) {
+        return (int) (key & bucketMask) * BUCKET_SIZE;
+    }
+
+    /**
+     * Removes all entries and resets the hit statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        entryCount = 0;
+        probes = 0;
+        hits = 0;
+    }
+
+    public int getVisits(int slot) {
+        return visits[slot];
+    }
+
+    public double getValue(int slot) {
+        return values[slot];
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the number of positions stored in the table.
+     *
+     * @return the number of occupied slots
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Retrieves the share of lookups that have found their position.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
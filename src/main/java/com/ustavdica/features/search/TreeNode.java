@@ -1,42 +1,391 @@
 package com.ustavdica.features.search;
 
+import com.ustavdica.features.state.Player;
 import com.ustavdica.features.state.State;
 import com.ustavdica.features.state.StateHandler;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
+/**
+ * Node of the search tree.
+ * <p>
+ * Statistics are updated atomically and children are published in single writes, so
+ * a single tree can be searched by several threads at the same time.
+ */
 public class TreeNode {
 
-    private final double C = Math.sqrt(2);
+    private static final VarHandle VISITS;
+    private static final VarHandle VALUE;
+    private static final VarHandle EXPANSION;
 
-    private int visits;
-    private double value;
+    // Atomic access to single elements of the AMAF arrays
+    private static final VarHandle AMAF_VISITS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle AMAF_VALUES = MethodHandles.arrayElementVarHandle(double[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VISITS = lookup.findVarHandle(TreeNode.class, "visits", int.class);
+            VALUE = lookup.findVarHandle(TreeNode.class, "value", double.class);
+            EXPANSION = lookup.findVarHandle(TreeNode.class, "expansion", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Expansion states, a node is expanded only by the thread that moves it out of UNEXPANDED
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+
+    // Proven outcomes of the game from a node's position, the same from both players' perspective
+    private static final int UNPROVEN = 0;
+    private static final int BLUE_WINS = 1;
+    private static final int PINK_WINS = 2;
+    private static final int DRAW = 3;
+
+    private static final int BOARD_SQUARES = 49;
+
+    private static final double C = Math.sqrt(2);
+
+    private volatile int visits;
+    private volatile double value;
+    private volatile int expansion;
+    private volatile int proof;
+
+    // Reset in place when the node is reused from the free list, see reset()
     private final State state;
-    private final TreeNode parent;
-    private final List<TreeNode> children;
+    private TreeNode parent;
+    private volatile List<TreeNode> children;
+
+    // Number of valid moves, set before the children are published
+    private int moveCount;
+
+    // Valid moves without a child yet, only when expanded without a prior, see expandChild()
+    private volatile long untriedMoves;
+
+    // Valid moves and their normalized priors, highest prior first, only when expanded with a prior
+    private int[] orderedMoves;
+    private double[] orderedPriors;
+
+    // Prior of the move leading to this node, 0 unless the parent was expanded with a prior
+    private double prior;
+
+    // All-moves-as-first statistics of the player to move, indexed by square, null unless enabled
+    private volatile int[] amafVisits;
+    private volatile double[] amafValues;
 
     private final StateHandler stateHandler;
 
+    // Children are taken from here before allocating new ones, null when nodes are not recycled
+    private final NodeFreeList freeList;
+
 
     public TreeNode(State state, TreeNode parent, StateHandler stateHandler) {
+        this(state, parent, stateHandler, null);
+    }
+
+    TreeNode(State state, TreeNode parent, StateHandler stateHandler, NodeFreeList freeList) {
         this.visits = 0;
         this.value = 0;
+        this.expansion = UNEXPANDED;
         this.state = state;
         this.parent = parent;
-        this.children = new ArrayList<>();
+        this.children = List.of();
         this.stateHandler = stateHandler;
+        this.freeList = freeList;
+        this.proof = terminalProof(state);
     }
 
+    // The outcome of a finished game is known without simulating it
+    private static int terminalProof(State state) {
+        if (!state.isGameOver()) return UNPROVEN;
 
-    public void expand() {
-        stateHandler.getAvailableMoves(state).stream().map(move -> {
+        Player winner = state.getWinner();
+        return winner == null ? DRAW : winner == Player.BLUE ? BLUE_WINS : PINK_WINS;
+    }
+
+    /**
+     * Creates the child reached by a move, reusing a node of the free list if there is one.
+     */
+    private TreeNode newChild(int move) {
+        TreeNode child = freeList == null ? null : freeList.poll();
+        if (child == null) {
             State stateCopy = new State(state); // Deep copy the current state
-            stateHandler.applyMove(stateCopy, move);
-            return new TreeNode(stateCopy, this, stateHandler);
-        }).forEach(children::add);
+            stateHandler.applyMoveUnchecked(stateCopy, move);
+            return new TreeNode(stateCopy, this, stateHandler, freeList);
+        }
+
+        child.reset(this, move);
+        return child;
+    }
+
+    // Turns a recycled node into a fresh child of the given parent
+    private void reset(TreeNode newParent, int move) {
+        state.copyFrom(newParent.state);
+        stateHandler.applyMoveUnchecked(state, move);
+
+        visits = 0;
+        value = 0;
+        proof = terminalProof(state);
+        parent = newParent;
+        prior = 0;
+        clearChildren();
+    }
+
+    private void clearChildren() {
+        children = List.of();
+        moveCount = 0;
+        untriedMoves = 0;
+        orderedMoves = null;
+        orderedPriors = null;
+        amafVisits = null;
+        amafValues = null;
+        expansion = UNEXPANDED;
+    }
+
+    /**
+     * Cuts off all descendants of this node and hands them to the free list.
+     * <p>
+     * The node keeps its own statistics and proof and can be expanded again later.
+     * Must only be called while no other thread is searching the tree.
+     *
+     * @return the number of nodes handed to the free list
+     */
+    int collapse() {
+        int recycled = 0;
+        for (TreeNode child : children) recycled += child.recycle();
+        clearChildren();
+        return recycled;
+    }
+
+    /**
+     * Hands this node and all its descendants to the free list.
+     * <p>
+     * Must only be called on nodes no longer reachable from the root, while no
+     * other thread is searching the tree.
+     *
+     * @return the number of nodes handed to the free list
+     */
+    int recycle() {
+        int recycled = 1 + collapse();
+        parent = null;
+        if (freeList != null) freeList.add(this);
+        return recycled;
+    }
+
+    /**
+     * Recycles this node and its descendants, except for the subtree of the given node.
+     *
+     * @param kept the root of the subtree to keep, or null to recycle everything
+     * @return the number of nodes handed to the free list
+     */
+    int recycleExcept(TreeNode kept) {
+        if (this == kept) return 0;
+
+        int recycled = 1;
+        for (TreeNode child : children) recycled += child.recycleExcept(kept);
+        clearChildren();
+        parent = null;
+        if (freeList != null) freeList.add(this);
+        return recycled;
+    }
+
+    boolean isExpanded() {
+        return expansion == EXPANDED;
+    }
+
+
+    /**
+     * Expands this node lazily, recording its valid moves as untried without creating any child.
+     * <p>
+     * Only the first caller expands the node. Children are then created one at a
+     * time by {@link #expandChild(RandomGenerator)}, so moves that are never tried
+     * never cost a node or a copy of the state. A concurrent caller waits for the
+     * expansion to finish, so the untried moves are set once this method returns.
+     *
+     * @return {@code true} if this call has expanded the node, {@code false} if
+     * another call has already done it
+     */
+    public boolean expand() {
+        if (expansion != UNEXPANDED) return false;
+
+        synchronized (this) {
+            if (!EXPANSION.compareAndSet(this, UNEXPANDED, EXPANDING)) return false;
+
+            long validMoveMask = stateHandler.getValidMoveMask(state);
+            moveCount = Long.bitCount(validMoveMask);
+            untriedMoves = validMoveMask;
+            expansion = EXPANDED;
+            return true;
+        }
+    }
+
+    /**
+     * Creates the child of an untried move.
+     * <p>
+     * While AMAF statistics are collected for this node, the move with the highest AMAF
+     * mean is tried first, the same order {@link #getBestChild(double)} would pick the
+     * unvisited children in. Otherwise, the move is picked at random. The new child is
+     * published in one write, like the children of {@link #widen(int)}, before the move
+     * is removed from the untried moves.
+     *
+     * @param random the generator picking the move
+     * @return the new child, or null if the node has not been expanded or every move has a child
+     */
+    public TreeNode expandChild(RandomGenerator random) {
+        if (untriedMoves == 0) return null;
+
+        synchronized (this) {
+            long moves = untriedMoves;
+            if (moves == 0) return null;
+
+            int move = amafVisits != null ? bestAmafMove(moves, random) : randomMove(moves, random);
+
+            List<TreeNode> currentChildren = children;
+            List<TreeNode> expandedChildren = new ArrayList<>(currentChildren.size() + 1);
+            expandedChildren.addAll(currentChildren);
+            TreeNode child = newChild(move);
+            expandedChildren.add(child);
+
+            children = expandedChildren;
+            untriedMoves &= ~(1L << move);
+            return child;
+        }
+    }
+
+    private static int randomMove(long moves, RandomGenerator random) {
+        // Skip a random number of set bits, there are at most 49 of them
+        for (int skipped = random.nextInt(Long.bitCount(moves)); skipped > 0; skipped--) moves &= moves - 1;
+        return Long.numberOfTrailingZeros(moves);
+    }
+
+    // Like raveUct(), a move without AMAF statistics has no estimate yet and is tried before the others
+    private int bestAmafMove(long moves, RandomGenerator random) {
+        int[] visits = amafVisits;
+        double[] values = amafValues;
+
+        long unsampledMoves = 0;
+        int bestMove = -1;
+        double bestMean = Double.NEGATIVE_INFINITY;
+        for (long remaining = moves; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            int moveVisits = (int) AMAF_VISITS.getVolatile(visits, square);
+            if (moveVisits == 0) {
+                unsampledMoves |= 1L << square;
+                continue;
+            }
+
+            double amafMean = (double) AMAF_VALUES.getVolatile(values, square) / moveVisits;
+            if (amafMean > bestMean) {
+                bestMean = amafMean;
+                bestMove = square;
+            }
+        }
+        return unsampledMoves != 0 ? randomMove(unsampledMoves, random) : bestMove;
+    }
+
+    /**
+     * Checks if some valid move of this node has no child yet.
+     * <p>
+     * Always false for nodes expanded with a prior, they grow through {@link #widen(int)}.
+     */
+    public boolean hasUntriedMoves() {
+        return untriedMoves != 0;
+    }
+
+    /**
+     * Scores the valid moves of this node with a prior and creates children for the best of them.
+     * <p>
+     * Moves are sorted by their prior, highest first, and only the first {@code width}
+     * of them get a child. {@link #widen(int)} adds the others later, in the same order.
+     * A concurrent caller waits for the expansion to finish, like with {@link #expand()}.
+     *
+     * @param movePrior the prior scoring the moves
+     * @param width     the number of children to create right away
+     * @return {@code true} if this call has expanded the node, {@code false} if
+     * another call has already done it
+     */
+    public boolean expand(MovePrior movePrior, int width) {
+        if (expansion != UNEXPANDED) return false;
+
+        synchronized (this) {
+            return expandWithPrior(movePrior, width);
+        }
+    }
+
+    private boolean expandWithPrior(MovePrior movePrior, int width) {
+        if (!EXPANSION.compareAndSet(this, UNEXPANDED, EXPANDING)) return false;
+
+        long validMoveMask = stateHandler.getValidMoveMask(state);
+        int count = Long.bitCount(validMoveMask);
+        int[] moves = new int[count];
+        double[] priors = new double[count];
+
+        double totalWeight = 0;
+        for (int i = 0; i < count; i++) {
+            int square = Long.numberOfTrailingZeros(validMoveMask);
+            double weight = movePrior.weight(state, square);
+
+            // Insertion sort, there are at most 49 moves
+            int j = i;
+            for (; j > 0 && priors[j - 1] < weight; j--) {
+                moves[j] = moves[j - 1];
+                priors[j] = priors[j - 1];
+            }
+            moves[j] = square;
+            priors[j] = weight;
+
+            totalWeight += weight;
+            validMoveMask &= validMoveMask - 1;
+        }
+        for (int i = 0; i < count; i++) priors[i] /= totalWeight;
+
+        orderedMoves = moves;
+        orderedPriors = priors;
+        moveCount = count;
+
+        List<TreeNode> expandedChildren = new ArrayList<>();
+        for (int i = 0; i < Math.min(width, count); i++) expandedChildren.add(createChild(i));
+
+        children = expandedChildren;
+        expansion = EXPANDED;
+        return true;
+    }
+
+    /**
+     * Adds children in prior order until there are {@code width} of them (progressive widening).
+     * <p>
+     * Does nothing unless the node has been expanded with a prior. The widened
+     * children are published in one write, like the children of {@link #expand()}.
+     *
+     * @param width the number of children the node should have
+     * @return {@code true} if a child has been added, {@code false} otherwise
+     */
+    public boolean widen(int width) {
+        if (expansion != EXPANDED || children.size() >= Math.min(width, moveCount)) return false;
+
+        synchronized (this) {
+            List<TreeNode> currentChildren = children;
+            int targetSize = Math.min(width, moveCount);
+            if (currentChildren.size() >= targetSize) return false;
+
+            List<TreeNode> widenedChildren = new ArrayList<>(currentChildren);
+            for (int i = currentChildren.size(); i < targetSize; i++) widenedChildren.add(createChild(i));
+            children = widenedChildren;
+            return true;
+        }
+    }
+
+    private TreeNode createChild(int moveIndex) {
+        TreeNode child = newChild(orderedMoves[moveIndex]);
+        child.prior = orderedPriors[moveIndex];
+        return child;
     }
 
 
@@ -50,7 +399,75 @@ public class TreeNode {
      * @return the UCT value for the node
      */
     private double uct() {
-        return visits == 0 ? Double.MAX_VALUE : (value / visits) + C * Math.sqrt(Math.log(parent.visits) / visits);
+        return uct(value, visits, parent.visits);
+    }
+
+    private double uct(double value, int visits, int parentVisits) {
+        return visits == 0 ? Double.MAX_VALUE : (value / visits) + C * Math.sqrt(Math.log(parentVisits) / visits);
+    }
+
+    /**
+     * Calculates the PUCT value, where the exploration of a child is weighted by its prior.
+     * <p>
+     * Unvisited children are valued at the mean of their parent, seen from the player
+     * choosing between them, so their prior decides whether they are tried.
+     */
+    private double puct(double exploration, double parentMean, double sqrtParentVisits) {
+        double mean = visits == 0 ? parentMean : value / visits;
+        return mean + exploration * prior * sqrtParentVisits / (1 + visits);
+    }
+
+    /**
+     * Calculates the UCT value with the mean value blended with the AMAF mean of the move.
+     * <p>
+     * The AMAF weight follows the schedule beta = sqrt(k / (3n + k)), so it starts at 1
+     * and drops to a half once the node has been visited k / 3 times. An unvisited child
+     * is scored with the AMAF mean alone, so the AMAF statistics decide which of them
+     * is tried first, and only a move without AMAF statistics is tried unconditionally.
+     */
+    private double raveUct(int[] parentAmafVisits, double[] parentAmafValues, double equivalence, int parentVisits) {
+        int square = state.getLastMove();
+        int moveVisits = (int) AMAF_VISITS.getVolatile(parentAmafVisits, square);
+        if (moveVisits == 0) return uct(value, visits, parentVisits);
+
+        double amafMean = (double) AMAF_VALUES.getVolatile(parentAmafValues, square) / moveVisits;
+        if (visits == 0) return amafMean;
+
+        double beta = Math.sqrt(equivalence / (3.0 * visits + equivalence));
+        double mean = (1 - beta) * (value / visits) + beta * amafMean;
+        return mean + C * Math.sqrt(Math.log(parentVisits) / visits);
+    }
+
+    /**
+     * Starts collecting all-moves-as-first statistics for the children of this node.
+     */
+    public void enableAmaf() {
+        if (amafVisits != null) return;
+
+        // Values are published before visits, readers check the visits array
+        amafValues = new double[BOARD_SQUARES];
+        amafVisits = new int[BOARD_SQUARES];
+    }
+
+    /**
+     * Adds the result of a playout to the AMAF statistics of every given square.
+     * <p>
+     * Does nothing unless {@link #enableAmaf()} has been called.
+     *
+     * @param squares the squares the player to move at this node has taken later in the game
+     * @param value   the result of the playout
+     */
+    public void addAmaf(long squares, double value) {
+        int[] visits = amafVisits;
+        if (visits == null) return;
+
+        double[] values = amafValues;
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            AMAF_VISITS.getAndAdd(visits, square, 1);
+            AMAF_VALUES.getAndAdd(values, square, value);
+            squares &= squares - 1;
+        }
     }
 
     public boolean hasChildren() {
@@ -62,20 +479,195 @@ public class TreeNode {
     }
 
     public void addValue(double value) {
-        this.value += value;
+        VALUE.getAndAdd(this, value);
     }
 
     public void incrementVisits() {
-        this.visits++;
+        VISITS.getAndAdd(this, 1);
+    }
+
+    public void addVisits(int visits) {
+        VISITS.getAndAdd(this, visits);
+    }
+
+    /**
+     * Counts a pending visit of a thread that is still simulating below this node.
+     * <p>
+     * The visit is scored in advance as a loss, which lowers the UCT value of
+     * this node so concurrent selections are steered down different paths.
+     * The loss is taken back once the real result is added.
+     *
+     * @param loss the value of a lost game
+     */
+    public void addVirtualLoss(double loss) {
+        VISITS.getAndAdd(this, 1);
+        VALUE.getAndAdd(this, loss);
+    }
+
+    /**
+     * Tries to prove the outcome of this node from the proven outcomes of its children.
+     * <p>
+     * The player to move wins if any child is a proven win for them. Once every valid
+     * move has a child and every child is proven, the node is a draw if any child is a
+     * draw and a loss otherwise.
+     * Outcomes only depend on the children, so concurrent calls agree on the result.
+     *
+     * @return true if the outcome of this node is proven, false otherwise
+     */
+    public boolean updateProof() {
+        if (proof != UNPROVEN) return true;
+
+        List<TreeNode> currentChildren = children;
+        if (currentChildren.isEmpty()) return false;
+
+        int win = state.getNextPlayer() == Player.BLUE ? BLUE_WINS : PINK_WINS;
+        int loss = win == BLUE_WINS ? PINK_WINS : BLUE_WINS;
+
+        // Moves without a child yet are not proven
+        boolean allProven = currentChildren.size() == moveCount;
+        boolean canDraw = false;
+        for (TreeNode child : currentChildren) {
+            int childProof = child.proof;
+            if (childProof == win) {
+                proof = win;
+                return true;
+            }
+            if (childProof == UNPROVEN) allProven = false;
+            if (childProof == DRAW) canDraw = true;
+        }
+
+        if (allProven) proof = canDraw ? DRAW : loss;
+        return allProven;
     }
 
-    public TreeNode getRandomChild() {
-        Collections.shuffle(children);
-        return children.getFirst();
+    public boolean isProven() {
+        return proof != UNPROVEN;
     }
 
+    /**
+     * Checks if the game from this node is proven to be won by the given player.
+     *
+     * @param player the player to check
+     * @return true if the player wins with best play from both sides, false otherwise
+     */
+    public boolean isProvenWin(Player player) {
+        return proof == (player == Player.BLUE ? BLUE_WINS : PINK_WINS);
+    }
+
+    public boolean isProvenDraw() {
+        return proof == DRAW;
+    }
+
+    /**
+     * Selects the child with the highest UCT value.
+     * <p>
+     * Children with a proven outcome are skipped, searching them cannot change their value.
+     *
+     * @return the unproven child with the highest UCT value, or null if there is none
+     */
     public TreeNode getBestChild() {
-        return children.stream().max(Comparator.comparingDouble(TreeNode::uct)).orElse(null);
+        TreeNode bestChild = null;
+        double bestUct = Double.NEGATIVE_INFINITY;
+        for (TreeNode child : children) {
+            if (child.proof != UNPROVEN) continue;
+
+            double childUct = child.uct();
+            if (childUct > bestUct) {
+                bestUct = childUct;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Selects the child with the highest UCT value, blending in the AMAF statistics (RAVE).
+     * <p>
+     * Falls back to plain UCT while AMAF statistics are not collected for this node.
+     * Children with a proven outcome are skipped.
+     *
+     * @param equivalence the number of visits k at which node and AMAF statistics weigh the same
+     * @return the unproven child with the highest value, or null if there is none
+     */
+    public TreeNode getBestChild(double equivalence) {
+        int[] visits = amafVisits;
+        if (visits == null) return getBestChild();
+
+        double[] values = amafValues;
+        TreeNode bestChild = null;
+        double bestUct = Double.NEGATIVE_INFINITY;
+        for (TreeNode child : children) {
+            if (child.proof != UNPROVEN) continue;
+
+            double childUct = child.raveUct(visits, values, equivalence, this.visits);
+            if (childUct > bestUct) {
+                bestUct = childUct;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Selects the child with the highest PUCT value.
+     * <p>
+     * Children with a proven outcome are skipped.
+     *
+     * @param exploration the weight of the prior-driven exploration term
+     * @return the unproven child with the highest PUCT value, or null if there is none
+     */
+    public TreeNode getBestPuctChild(double exploration) {
+        int currentVisits = visits;
+
+        // The value of this node is from the opponent's perspective, the children's from ours
+        double mean = currentVisits == 0 ? 0 : -value / currentVisits;
+        double sqrtVisits = Math.sqrt(currentVisits);
+
+        TreeNode bestChild = null;
+        double bestPuct = Double.NEGATIVE_INFINITY;
+        for (TreeNode child : children) {
+            if (child.proof != UNPROVEN) continue;
+
+            double childPuct = child.puct(exploration, mean, sqrtVisits);
+            if (childPuct > bestPuct) {
+                bestPuct = childPuct;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Selects the child with the highest UCT value, using the statistics of the transposition table.
+     * <p>
+     * Positions reached by several move orders are scored with the visits and value
+     * accumulated over all of them. Positions missing from the table, e.g. because
+     * their entry has been replaced, fall back to the statistics of the node itself.
+     * Children with a proven outcome are skipped.
+     *
+     * @param table the transposition table holding the shared statistics
+     * @return the unproven child with the highest UCT value, or null if there is none
+     */
+    public TreeNode getBestChild(TranspositionTable table) {
+        int slot = table.find(TranspositionTable.key(state));
+        int parentVisits = slot < 0 ? visits : table.getVisits(slot);
+
+        TreeNode bestChild = null;
+        double bestUct = Double.NEGATIVE_INFINITY;
+        for (TreeNode child : children) {
+            if (child.proof != UNPROVEN) continue;
+
+            int childSlot = table.find(TranspositionTable.key(child.state));
+            double childUct = childSlot < 0
+                    ? uct(child.value, child.visits, parentVisits)
+                    : uct(table.getValue(childSlot), table.getVisits(childSlot), parentVisits);
+
+            if (childUct > bestUct) {
+                bestUct = childUct;
+                bestChild = child;
+            }
+        }
+        return bestChild;
     }
 
     public TreeNode getBestMove() {
@@ -91,6 +683,16 @@ public class TreeNode {
         return bestChild;
     }
 
+    /**
+     * Makes this node a root by cutting it off from its parent.
+     * <p>
+     * Backpropagation then stops at this node, and the rest of the old tree
+     * is no longer reachable from it and can be garbage collected.
+     */
+    public void detach() {
+        parent = null;
+    }
+
     public TreeNode getParent() {
         return parent;
     }
@@ -103,6 +705,14 @@ public class TreeNode {
         return visits;
     }
 
+    public double getValue() {
+        return value;
+    }
+
+    public double getPrior() {
+        return prior;
+    }
+
     public List<TreeNode> getChildren() {
         return children;
     }
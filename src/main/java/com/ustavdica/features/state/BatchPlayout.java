@@ -0,0 +1,42 @@
+package com.ustavdica.features.state;
+
+/**
+ * Plays out several games at once.
+ * <p>
+ * The implementation, {@code BatchPlayoutEngine}, uses the incubating Vector API, so it
+ * is only compiled by the {@code vector} build profile and only loaded by {@link #create}.
+ * Everything else builds and runs without the {@code jdk.incubator.vector} module.
+ */
+public interface BatchPlayout {
+
+    /**
+     * Plays random moves on the given states until their games are over.
+     * <p>
+     * Behaves like calling {@link StateHandler#playout(State, java.util.random.RandomGenerator)}
+     * on every state. The states are modified in place, including their hash and game status.
+     *
+     * @param states the states to play out
+     * @param count  the number of states, starting from the first, to play out
+     */
+    void playout(State[] states, int count);
+
+    /**
+     * Creates a batch playout engine.
+     *
+     * @param stateHandler the StateHandler whose move rules the engine follows
+     * @param seed         the seed of the random moves
+     * @return a new engine, not thread-safe
+     * @throws IllegalStateException if the engine has not been built with the {@code vector} profile,
+     *                               or the JVM runs without {@code --add-modules jdk.incubator.vector}
+     */
+    static BatchPlayout create(StateHandler stateHandler, long seed) {
+        try {
+            return (BatchPlayout) Class.forName("com.ustavdica.features.state.BatchPlayoutEngine")
+                    .getConstructor(StateHandler.class, long.class)
+                    .newInstance(stateHandler, seed);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Batched playouts need a build with the vector profile"
+                    + " and a JVM started with --add-modules jdk.incubator.vector", e);
+        }
+    }
+}
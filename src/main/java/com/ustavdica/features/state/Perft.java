@@ -0,0 +1,91 @@
+package com.ustavdica.features.state;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Move generation counter (perft) for checking the move rules.
+ * <p>
+ * Counts the leaf positions of the game tree up to a given depth. A position is a leaf
+ * when the depth is reached or when the game is over, so the tree stops at wins and
+ * draws. Any change to the move generator that changes the rules changes these counts.
+ */
+public class Perft {
+
+    private final StateHandler stateHandler;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a Perft counter splitting parallel counts over the given pool.
+     *
+     * @param stateHandler the StateHandler generating and applying moves
+     * @param pool         the pool the root moves are counted on by {@link #countParallel(State, int)}
+     */
+    public Perft(StateHandler stateHandler, ForkJoinPool pool) {
+        this.stateHandler = stateHandler;
+        this.pool = pool;
+    }
+
+    /**
+     * Counts the leaf positions up to the given depth on the calling thread.
+     *
+     * @param state the position to count from, it is not modified
+     * @param depth the number of moves to look ahead
+     * @return the number of leaf positions
+     */
+    public long count(State state, int depth) {
+        return count(state, depth, createStack(state, depth));
+    }
+
+    /**
+     * Counts the leaf positions up to the given depth, counting every root move as a separate task.
+     *
+     * @param state the position to count from, it is not modified
+     * @param depth the number of moves to look ahead
+     * @return the number of leaf positions
+     */
+    public long countParallel(State state, int depth) {
+        if (depth <= 1 || stateHandler.isTerminal(state)) return count(state, depth);
+
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+        long validMoveMask = stateHandler.getValidMoveMask(state);
+        while (validMoveMask != 0) {
+            State child = new State(state);
+            stateHandler.applyMoveUnchecked(child, Long.numberOfTrailingZeros(validMoveMask));
+            tasks.add(pool.submit(() -> count(child, depth - 1)));
+            validMoveMask &= validMoveMask - 1;
+        }
+
+        long leaves = 0;
+        for (ForkJoinTask<Long> task : tasks) leaves += task.join();
+        return leaves;
+    }
+
+    private long count(State state, int depth, State[] stack) {
+        if (depth == 0 || stateHandler.isTerminal(state)) return 1;
+
+        long validMoveMask = stateHandler.getValidMoveMask(state);
+
+        // Every move leads to a leaf, so there is no need to apply them
+        if (depth == 1) return Long.bitCount(validMoveMask);
+
+        State child = stack[depth - 1];
+        long leaves = 0;
+        while (validMoveMask != 0) {
+            child.copyFrom(state);
+            stateHandler.applyMoveUnchecked(child, Long.numberOfTrailingZeros(validMoveMask));
+            leaves += count(child, depth - 1, stack);
+            validMoveMask &= validMoveMask - 1;
+        }
+        return leaves;
+    }
+
+    // One scratch state per remaining depth, so counting does not allocate
+    private State[] createStack(State state, int depth) {
+        State[] stack = new State[Math.max(depth, 1)];
+        for (int i = 0; i < stack.length; i++) stack[i] = new State(state);
+        return stack;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ustavdica.features.state;
+
+/**
+ * Strategy for picking moves during a playout.
+ */
+public enum PlayoutPolicy {
+
+    /**
+     * Every valid move is equally likely.
+     */
+    UNIFORM,
+
+    /**
+     * Plays a winning move if there is one, otherwise blocks the opponent's winning
+     * move, otherwise falls back to a uniformly random valid move.
+     */
+    TACTICAL
+}
@@ -1,5 +1,7 @@
 package com.ustavdica.features.state;
 
+import java.util.Arrays;
+
 /**
  * Represents the state of the game.
  */
@@ -8,13 +10,27 @@ public class State {
     // Number of bits needed to store the last move (0-48)
     private static final int LAST_MOVE_BITS = 6; // 6 bits can represent numbers from 0 to 63
 
+    // The game status is stored in the 2 bits right after the last move
+    private static final int STATUS_SHIFT = LAST_MOVE_BITS;
+    private static final long STATUS_MASK = 0b11L << STATUS_SHIFT;
+
+    // Game statuses, set by StateHandler when a move ends the game
+    static final int ONGOING = 0;
+    static final int BLUE_WON = 1;
+    static final int PINK_WON = 2;
+    static final int DRAW = 3;
+
     private final long[] bitboards;
     private long outlineAccumulator;
     private long metadata;
 
+    // Zobrist hash of the position, kept up to date by the setters below
+    private long hash;
+
     public State(Player startingPlayer) {
         this.bitboards = new long[2];
         this.metadata = 0L;
+        this.hash = Zobrist.LAST_MOVE_KEYS[0];
         setNextPlayer(startingPlayer);
     }
 
@@ -27,6 +43,23 @@ public class State {
         this.bitboards = other.bitboards.clone();
         this.outlineAccumulator = other.outlineAccumulator;
         this.metadata = other.metadata;
+        this.hash = other.hash;
+    }
+
+    /**
+     * Overwrites this state with the contents of the given State object.
+     * <p>
+     * Allows a single State instance to be reused as scratch space, e.g. for
+     * playouts, without allocating a new copy every time.
+     *
+     * @param other the State object to copy from
+     */
+    public void copyFrom(State other) {
+        this.bitboards[0] = other.bitboards[0];
+        this.bitboards[1] = other.bitboards[1];
+        this.outlineAccumulator = other.outlineAccumulator;
+        this.metadata = other.metadata;
+        this.hash = other.hash;
     }
 
     // Internal methods accessible by StateHandler
@@ -49,8 +82,7 @@ public class State {
      * @param nextPlayer The player to set as the next player (Player.BLUE or Player.PINK).
      */
     void setNextPlayer(Player nextPlayer) {
-        if (nextPlayer == Player.PINK) metadata |= 0x8000000000000000L;
-        else metadata &= 0x7FFFFFFFFFFFFFFFL;
+        if (nextPlayer != getNextPlayer()) switchPlayer();
     }
 
     /**
@@ -58,6 +90,7 @@ public class State {
      */
     void switchPlayer() {
         metadata ^= 0x8000000000000000L;
+        hash ^= Zobrist.PINK_TO_MOVE_KEY;
     }
 
     /**
@@ -67,6 +100,15 @@ public class State {
      * @param bitboard the new bitboard representing the player's state
      */
     void setBitboard(Player player, long bitboard) {
+        long[] stoneKeys = Zobrist.STONE_KEYS[player.ordinal()];
+
+        // Toggle the key of every changed square, this is a single XOR when placing one stone
+        long changed = bitboards[player.ordinal()] ^ bitboard;
+        while (changed != 0) {
+            hash ^= stoneKeys[Long.numberOfTrailingZeros(changed)];
+            changed &= changed - 1;
+        }
+
         bitboards[player.ordinal()] = bitboard;
     }
 
@@ -76,6 +118,8 @@ public class State {
      * @param square the index of the square representing the last move (0-48)
      */
     void setLastMove(int square) {
+        hash ^= Zobrist.LAST_MOVE_KEYS[getLastMove()] ^ Zobrist.LAST_MOVE_KEYS[square];
+
         // Clear the last move bits (they occupy the least significant 6 bits)
         metadata &= -(1L << LAST_MOVE_BITS);
 
@@ -83,6 +127,22 @@ public class State {
         metadata |= (square & ((1L << LAST_MOVE_BITS) - 1));
     }
 
+    /**
+     * Sets the game status in the metadata.
+     * <p>
+     * The status is computed once by StateHandler when a move is applied,
+     * so checking whether the game is over does not repeat the win detection.
+     *
+     * @param status one of ONGOING, BLUE_WON, PINK_WON or DRAW
+     */
+    void setStatus(int status) {
+        metadata = (metadata & ~STATUS_MASK) | ((long) status << STATUS_SHIFT);
+    }
+
+    int getStatus() {
+        return (int) ((metadata & STATUS_MASK) >>> STATUS_SHIFT);
+    }
+
 
     // Bellow are methods that are accessible to every class
 
@@ -118,6 +178,41 @@ public class State {
         return bitboards[player.ordinal()];
     }
 
+    /**
+     * Retrieves the Zobrist hash of the position.
+     * <p>
+     * The hash is updated incrementally with every applied move, so it is a
+     * constant-time key for caches and transposition lookups. Equal positions
+     * always have equal hashes.
+     *
+     * @return the 64-bit hash of the stones, the last move and the player to move
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Checks if the game has ended, either by a win or by a draw.
+     *
+     * @return true if no more moves can be played, false otherwise
+     */
+    public boolean isGameOver() {
+        return getStatus() != ONGOING;
+    }
+
+    /**
+     * Retrieves the winner of the game.
+     *
+     * @return the player who has won, or null if the game is ongoing or drawn
+     */
+    public Player getWinner() {
+        return switch (getStatus()) {
+            case BLUE_WON -> Player.BLUE;
+            case PINK_WON -> Player.PINK;
+            default -> null;
+        };
+    }
+
     /**
      * Retrieves the player whose turn is next.
      *
@@ -136,6 +231,26 @@ public class State {
         return bitboards[Player.BLUE.ordinal()] | bitboards[Player.PINK.ordinal()];
     }
 
+    /**
+     * Two states are equal when they describe the same position, meaning the same stones,
+     * outline accumulator, last move and player to move.
+     *
+     * @param o the object to compare with
+     * @return true if both states describe the same position, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof State other)) return false;
+        return outlineAccumulator == other.outlineAccumulator
+                && metadata == other.metadata
+                && Arrays.equals(bitboards, other.bitboards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
 
     /**
      * Prints the current state of the game board to the console.<br>
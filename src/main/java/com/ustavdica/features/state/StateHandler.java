@@ -1,8 +1,9 @@
 package com.ustavdica.features.state;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Singleton class for managing operations on the game state.
@@ -13,24 +14,32 @@ import java.util.List;
  */
 public class StateHandler {
 
-    private static StateHandler instance;
+    private static final StateHandler INSTANCE = new StateHandler();
 
-    private long[] SQUARE_BIT_MASKS;
-    private long[] SQUARE_OUTLINE_MASKS;
-    private long[] ROW_MASKS;
-    private long[] COLUMN_MASKS;
-    private long[] DIAGONAL_MASKS;
-    private long[] ANTI_DIAGONAL_MASKS;
+    // Number of stones on a full board, one square is left empty so both players place 24 stones
+    static final int FULL_BOARD_STONES = 48;
+
+    /*
+    Precomputed masks are static final, so the JIT can treat them as constants
+    instead of loading them from the instance on every access
+     */
+    private static final long[] SQUARE_BIT_MASKS = createSquareBitMasks();
+    private static final long[] SQUARE_OUTLINE_MASKS = createSquareOutlineMasks();
+
+    /*
+    Four in a row is searched for along four directions: to the left (1), up (7),
+    up-left (8) and up-right (6). For every direction the start mask holds the squares
+    from which a line of four in that direction stays on the board without wrapping.
+     */
+    static final int[] LINE_DIRECTIONS = {1, 7, 8, 6};
+    static final long[] LINE_START_MASKS = createLineStartMasks();
+
+    // Mask of all 49 squares of the board
+    static final long BOARD_MASK = 0x1ffffffffffffL;
 
 
     // Private constructor to prevent instantiation
     private StateHandler() {
-        initializeSquareBitMasks();
-        initializeSquareOutlineMasks();
-        initializeRowMasks();
-        initializeColumnMasks();
-        initializeDiagonalMasks();
-        initializeAntiDiagonalMasks();
     }
 
     /**
@@ -38,160 +47,105 @@ public class StateHandler {
      * <p>
      * This method implements the Singleton pattern, ensuring that only one
      * instance of StateHandler exists throughout the application.
-     * It is thread-safe and lazily initializes the instance.
+     * The instance is created eagerly, so retrieving it needs no synchronization.
      *
      * @return the single instance of StateHandler
      */
-    public static synchronized StateHandler getInstance() {
-        if (instance == null) instance = new StateHandler();
-        return instance;
+    public static StateHandler getInstance() {
+        return INSTANCE;
     }
 
 
 
     /**
-     * Initializes bit masks for each square on a 7x7 board.
+     * Creates bit masks for each square on a 7x7 board.
      * <p>
      * These masks are precomputed and are allowing efficient manipulation
      * and checks of individual squares on the board.
      */
-    private void initializeSquareBitMasks() {
-        SQUARE_BIT_MASKS = new long[49];
-        for (int square = 0; square < SQUARE_BIT_MASKS.length; square++) {
-            SQUARE_BIT_MASKS[square] = 1L << square;
+    private static long[] createSquareBitMasks() {
+        long[] squareBitMasks = new long[49];
+        for (int square = 0; square < squareBitMasks.length; square++) {
+            squareBitMasks[square] = 1L << square;
         }
+        return squareBitMasks;
     }
 
     /**
-     * Initializes outline masks, which are needed for calculating available moves
+     * Creates outline masks, which are needed for calculating available moves
      */
-    private void initializeSquareOutlineMasks() {
-        SQUARE_OUTLINE_MASKS = new long[49];
+    private static long[] createSquareOutlineMasks() {
+        long[] squareOutlineMasks = new long[49];
 
         // Generate corner masks (0, 6, 42, 48)
-        SQUARE_OUTLINE_MASKS[48] = 0x0001830000000000L; // Top left
-        SQUARE_OUTLINE_MASKS[42] = 0x00000C1800000000L; // Top right
-        SQUARE_OUTLINE_MASKS[6] = 0x0000000000003060L; // Bottom left
-        SQUARE_OUTLINE_MASKS[0] = 0x0000000000000183L; // Bottom right
+        squareOutlineMasks[48] = 0x0001830000000000L; // Top left
+        squareOutlineMasks[42] = 0x00000C1800000000L; // Top right
+        squareOutlineMasks[6] = 0x0000000000003060L; // Bottom left
+        squareOutlineMasks[0] = 0x0000000000000183L; // Bottom right
 
         // Generate inner masks (8-12, 15-19, 22-26, 29-33, 36-40)
         long mask = 0x000000000001C387L; // Base mask
         for (int row = 1; row <= 5; row++) {
             int start = row * 7 + 1;
             for (int shift = 0; shift < 5; shift++) {
-                SQUARE_OUTLINE_MASKS[start + shift] = mask << (row - 1) * 7 + shift;
+                squareOutlineMasks[start + shift] = mask << (row - 1) * 7 + shift;
             }
         }
 
         // Generate top masks (47-43)
-        long x = createMask(new int[]{44, 43, 42, 37, 36, 35});
-        SQUARE_OUTLINE_MASKS[43] = x;
-        SQUARE_OUTLINE_MASKS[44] = x << 1;
-        SQUARE_OUTLINE_MASKS[45] = x << 2;
-        SQUARE_OUTLINE_MASKS[46] = x << 3;
-        SQUARE_OUTLINE_MASKS[47] = x << 4;
+        long x = mask(new int[]{44, 43, 42, 37, 36, 35});
+        squareOutlineMasks[43] = x;
+        squareOutlineMasks[44] = x << 1;
+        squareOutlineMasks[45] = x << 2;
+        squareOutlineMasks[46] = x << 3;
+        squareOutlineMasks[47] = x << 4;
 
         // Generate bottom masks (5-1)
-        long y = createMask(new int[]{9, 8, 7, 2, 1, 0});
-        SQUARE_OUTLINE_MASKS[1] = y;
-        SQUARE_OUTLINE_MASKS[2] = y << 1;
-        SQUARE_OUTLINE_MASKS[3] = y << 2;
-        SQUARE_OUTLINE_MASKS[4] = y << 3;
-        SQUARE_OUTLINE_MASKS[5] = y << 4;
+        long y = mask(new int[]{9, 8, 7, 2, 1, 0});
+        squareOutlineMasks[1] = y;
+        squareOutlineMasks[2] = y << 1;
+        squareOutlineMasks[3] = y << 2;
+        squareOutlineMasks[4] = y << 3;
+        squareOutlineMasks[5] = y << 4;
 
         // Generate left masks
-        long z = createMask(new int[]{20, 19, 13, 12, 6, 5});
-        SQUARE_OUTLINE_MASKS[13] = z;
-        SQUARE_OUTLINE_MASKS[20] = z << 7;
-        SQUARE_OUTLINE_MASKS[27] = z << 14;
-        SQUARE_OUTLINE_MASKS[34] = z << 21;
-        SQUARE_OUTLINE_MASKS[41] = z << 28;
+        long z = mask(new int[]{20, 19, 13, 12, 6, 5});
+        squareOutlineMasks[13] = z;
+        squareOutlineMasks[20] = z << 7;
+        squareOutlineMasks[27] = z << 14;
+        squareOutlineMasks[34] = z << 21;
+        squareOutlineMasks[41] = z << 28;
 
         // Generate right masks
-        long u = createMask(new int[]{15, 14, 8, 7, 1, 0});
-        SQUARE_OUTLINE_MASKS[7] = u;
-        SQUARE_OUTLINE_MASKS[14] = u << 7;
-        SQUARE_OUTLINE_MASKS[21] = u << 14;
-        SQUARE_OUTLINE_MASKS[28] = u << 21;
-        SQUARE_OUTLINE_MASKS[35] = u << 28;
-    }
-
-    /**
-     * Initializes row masks for a 7x7 board.
-     * Each row mask is a bitmask representing the positions in a specific row
-     * of the board, where:
-     * - Row 0 corresponds to the bottom row.
-     * - Row 6 corresponds to the top row.
-     * <p>
-     * These masks are used for efficiently checking if there is a winner by determining
-     * if a specific row contains a winning condition.
-     */
-    private void initializeRowMasks() {
-        ROW_MASKS = new long[7];
-        ROW_MASKS[0] = createMask(new int[]{6, 5, 4, 3, 2, 1, 0});
-        ROW_MASKS[1] = createMask(new int[]{13, 12, 11, 10, 9, 8, 7});
-        ROW_MASKS[2] = createMask(new int[]{20, 19, 18, 17, 16, 15, 14});
-        ROW_MASKS[3] = createMask(new int[]{27, 26, 25, 24, 23, 22, 21});
-        ROW_MASKS[4] = createMask(new int[]{34, 33, 32, 31, 30, 29, 28});
-        ROW_MASKS[5] = createMask(new int[]{41, 40, 39, 38, 37, 36, 35});
-        ROW_MASKS[6] = createMask(new int[]{48, 47, 46, 45, 44, 43, 42});
-    }
-
-    /**
-     * Initializes column masks for a 7x7 board.
-     * Each column mask is a bitmask representing the positions in a specific column
-     * of the board, where:
-     * - Column 0 corresponds to the most right column.
-     * - Column 6 corresponds to the most left column.
-     * <p>
-     * These masks are used for efficiently checking if there is a winner by determining
-     * if a specific column contains a winning condition.
-     */
-    private void initializeColumnMasks() {
-        COLUMN_MASKS = new long[7];
-        COLUMN_MASKS[0] = createMask(new int[]{0, 7, 14, 21, 28, 35, 42});
-        COLUMN_MASKS[1] = createMask(new int[]{1, 8, 15, 22, 29, 36, 43});
-        COLUMN_MASKS[2] = createMask(new int[]{2, 9, 16, 23, 30, 37, 44});
-        COLUMN_MASKS[3] = createMask(new int[]{3, 10, 17, 24, 31, 38, 45});
-        COLUMN_MASKS[4] = createMask(new int[]{4, 11, 18, 25, 32, 39, 46});
-        COLUMN_MASKS[5] = createMask(new int[]{5, 12, 19, 26, 33, 40, 47});
-        COLUMN_MASKS[6] = createMask(new int[]{6, 13, 20, 27, 34, 41, 48});
+        long u = mask(new int[]{15, 14, 8, 7, 1, 0});
+        squareOutlineMasks[7] = u;
+        squareOutlineMasks[14] = u << 7;
+        squareOutlineMasks[21] = u << 14;
+        squareOutlineMasks[28] = u << 21;
+        squareOutlineMasks[35] = u << 28;
+
+        return squareOutlineMasks;
     }
 
     /**
-     * Initializes diagonal masks for a 7x7 board, focusing on diagonals
-     * that run from the top-left to the bottom-right (diagonals) of the board.
+     * Creates the start masks for lines of four in each of the {@link #LINE_DIRECTIONS}.
      * <p>
-     * Each diagonal mask is a bitmask representing the positions in a specific diagonal,
-     * allowing efficient checks for winning conditions along these diagonals.
+     * Square numbering starts from 0 (bottom-right corner) and increments right-to-left,
+     * bottom-to-top, so a square is {@code row * 7 + column} with column 0 on the right.
+     * A line may start on a square only if all four of its squares are on the board.
      */
-    private void initializeDiagonalMasks() {
-        DIAGONAL_MASKS = new long[7];
-        DIAGONAL_MASKS[0] = createMask(new int[]{3, 11, 19, 27});
-        DIAGONAL_MASKS[1] = createMask(new int[]{2, 10, 18, 26, 34});
-        DIAGONAL_MASKS[2] = createMask(new int[]{1, 9, 17, 25, 33, 41});
-        DIAGONAL_MASKS[3] = createMask(new int[]{0, 8, 16, 24, 32, 40, 48});
-        DIAGONAL_MASKS[4] = createMask(new int[]{7, 15, 23, 31, 39, 47});
-        DIAGONAL_MASKS[5] = createMask(new int[]{14, 22, 30, 38, 46});
-        DIAGONAL_MASKS[6] = createMask(new int[]{21, 29, 37, 45});
-    }
-
-    /**
-     * Initializes anti-diagonal masks for a 7x7 board, focusing on diagonals
-     * that run from the top-right to the bottom-left of the board.
-     * <p>
-     * Each anti-diagonal mask is a bitmask representing the positions in a specific anti-diagonal,
-     * enabling efficient checks for winning conditions along these diagonals.
-     */
-    private void initializeAntiDiagonalMasks() {
-        ANTI_DIAGONAL_MASKS = new long[7];
-        ANTI_DIAGONAL_MASKS[0] = createMask(new int[]{3, 9, 15, 21});
-        ANTI_DIAGONAL_MASKS[1] = createMask(new int[]{4, 10, 16, 22, 28});
-        ANTI_DIAGONAL_MASKS[2] = createMask(new int[]{5, 11, 17, 23, 29, 35});
-        ANTI_DIAGONAL_MASKS[3] = createMask(new int[]{6, 12, 18, 24, 30, 36, 42});
-        ANTI_DIAGONAL_MASKS[4] = createMask(new int[]{13, 19, 25, 31, 37, 43});
-        ANTI_DIAGONAL_MASKS[5] = createMask(new int[]{20, 26, 32, 38, 44});
-        ANTI_DIAGONAL_MASKS[6] = createMask(new int[]{27, 33, 39, 45});
+    private static long[] createLineStartMasks() {
+        long[] lineStartMasks = new long[LINE_DIRECTIONS.length];
+        for (int square = 0; square < 49; square++) {
+            int row = square / 7;
+            int column = square % 7;
+
+            if (column <= 3) lineStartMasks[0] |= 1L << square; // Left
+            if (row <= 3) lineStartMasks[1] |= 1L << square; // Up
+            if (row <= 3 && column <= 3) lineStartMasks[2] |= 1L << square; // Up-left
+            if (row <= 3 && column >= 3) lineStartMasks[3] |= 1L << square; // Up-right
+        }
+        return lineStartMasks;
     }
 
 
@@ -207,6 +161,10 @@ public class StateHandler {
      * @return a long value representing the generated bitmask/bitboard
      */
     public long createMask(int[] squares) {
+        return mask(squares);
+    }
+
+    private static long mask(int[] squares) {
         long mask = 0L;
         for (int square : squares) mask |= 1L << square;
         return mask;
@@ -223,9 +181,6 @@ public class StateHandler {
         // Gracefully handling the input
         if (square < 0 || square > 48) return false;
 
-        Player targetPlayer = state.getNextPlayer();
-        long currentBitboard = state.getBitboard(targetPlayer);
-
         // Get mask of squares where next move can be placed (following game rules)
         long validMoveMask = getValidMoveMask(state);
 
@@ -234,8 +189,26 @@ public class StateHandler {
             return false;
         }
 
+        applyMoveUnchecked(state, square);
+
+        return true;
+    }
+
+    /**
+     * Applies a move to the given state without validating it against the game rules.
+     * <p>
+     * This is the fast path used by playouts, where the move is already known to be
+     * taken from {@link #getValidMoveMask(State)}. Passing a square that is not a
+     * valid move leaves the state in an inconsistent position.
+     *
+     * @param state  the current state to modify
+     * @param square the square representing the move to apply (0-48)
+     */
+    public void applyMoveUnchecked(State state, int square) {
+        Player targetPlayer = state.getNextPlayer();
+
         // Update this player bitboard, applying his move
-        state.setBitboard(targetPlayer, currentBitboard | SQUARE_BIT_MASKS[square]);
+        state.setBitboard(targetPlayer, state.getBitboard(targetPlayer) | SQUARE_BIT_MASKS[square]);
         state.switchPlayer();
 
         // Update outline accumulator
@@ -244,7 +217,12 @@ public class StateHandler {
         // Setting the last move played
         state.setLastMove(square);
 
-        return true;
+        // Only the player who has just moved can have won, so the game status is settled here once
+        if (hasFourInARow(state.getBitboard(targetPlayer))) {
+            state.setStatus(targetPlayer == Player.BLUE ? State.BLUE_WON : State.PINK_WON);
+        } else if (Long.bitCount(state.getCombinedBitboard()) == FULL_BOARD_STONES) {
+            state.setStatus(State.DRAW);
+        }
     }
 
     /**
@@ -269,7 +247,7 @@ public class StateHandler {
         of the game this means that player can place his move on
         any square on the board, thus we return mask that has all 1's
          */
-        if (combined == 0) return 0x1ffffffffffffL;
+        if (combined == 0) return BOARD_MASK;
 
         // Otherwise we have more work to do, this part is for standard move
         int lastSquare = state.getLastMove();
@@ -322,64 +300,221 @@ public class StateHandler {
         return bitboardToMoves(getValidMoveMask(state));
     }
 
+    /**
+     * Computes the Zobrist hash of the given state from scratch.
+     * <p>
+     * States keep their hash up to date on every move, see {@link State#getHash()},
+     * so this is only needed to verify the incremental updates.
+     *
+     * @param state the state to hash
+     * @return the 64-bit hash of the stones, the last move and the player to move
+     */
+    public long computeHash(State state) {
+        long hash = Zobrist.LAST_MOVE_KEYS[state.getLastMove()];
+        if (state.getNextPlayer() == Player.PINK) hash ^= Zobrist.PINK_TO_MOVE_KEY;
+
+        for (Player player : Player.values()) {
+            long bitboard = state.getBitboard(player);
+            while (bitboard != 0) {
+                hash ^= Zobrist.STONE_KEYS[player.ordinal()][Long.numberOfTrailingZeros(bitboard)];
+                bitboard &= bitboard - 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the index of the n-th set bit (0-based, counted from the least significant bit).
+     * <p>
+     * The bitboard is narrowed by halves, skipping over the lower half whenever it holds
+     * fewer than {@code n + 1} set bits, so the index is found in six steps regardless of
+     * how many bits are set.
+     *
+     * @param bitboard the bitboard to select from
+     * @param n        which set bit to select, must be lower than {@code Long.bitCount(bitboard)}
+     * @return the index of the selected bit
+     */
+    public int selectBit(long bitboard, int n) {
+        int index = 0;
+        for (int width = 32; width > 0; width >>>= 1) {
+            int lowerCount = Long.bitCount(bitboard & ((1L << width) - 1));
+            if (n >= lowerCount) {
+                n -= lowerCount;
+                bitboard >>>= width;
+                index += width;
+            }
+        }
+        return index;
+    }
+
     // This one is needed for mcts simulation phase where you do random games
     public void performRandomMove(State state) {
-        List<Integer> moves = getAvailableMoves(state);
-        if (moves.isEmpty()) return;
-        Collections.shuffle(moves);
-        int randomMove = moves.getFirst();
-        applyMove(state, randomMove);
+        performRandomMove(state, ThreadLocalRandom.current());
     }
 
     /**
-     * Checks if the {@code player} is winner.
+     * Applies a uniformly random valid move to the given state.
+     * <p>
+     * The move is picked straight from the valid move mask, so unlike
+     * {@link #getAvailableMoves(State)} this does not allocate.
      *
-     * @param state the current game state to evaluate
-     * @param player the player that has made last move
-     * @return {@code true} {@code player} has won, {@code false} otherwise.
+     * @param state  the current state to modify
+     * @param random the source of randomness used to pick the move
+     * @return {@code true} if a move was applied, {@code false} if there was no valid move
      */
-    public boolean hasWon(State state, Player player) {
+    public boolean performRandomMove(State state, RandomGenerator random) {
+        long validMoveMask = getValidMoveMask(state);
+        if (validMoveMask == 0) return false;
 
-        // Bitboard of the player that played last move
-        long playersBitboard = state.getBitboard(player);
+        int square = selectBit(validMoveMask, random.nextInt(Long.bitCount(validMoveMask)));
+        applyMoveUnchecked(state, square);
+        return true;
+    }
 
-        // Calculate index based on last move
-        int lastMove = state.getLastMove();
-        int rowIndex = lastMove / 7;
-        int colIndex = lastMove % 7;
+    /**
+     * Plays random moves on the given state until the game is over.
+     * <p>
+     * The state is modified in place and no heap allocation happens during the playout,
+     * so callers that want to keep the starting position should play out a copy.
+     *
+     * @param state  the state to play out
+     * @param random the source of randomness used to pick the moves
+     */
+    public void playout(State state, RandomGenerator random) {
+        playout(state, random, PlayoutPolicy.UNIFORM);
+    }
 
-        // Check if there is win on row
-        long rowMask = ROW_MASKS[rowIndex];
-        long extractedRow = playersBitboard & rowMask;
-        if (hasFourOnesWithSpacing(extractedRow, 0)) return true;
+    /**
+     * Plays moves picked by the given policy on the given state until the game is over.
+     * <p>
+     * The state is modified in place and no heap allocation happens during the playout,
+     * so callers that want to keep the starting position should play out a copy.
+     *
+     * @param state  the state to play out
+     * @param random the source of randomness used to pick the moves
+     * @param policy the strategy used to pick the moves
+     */
+    public void playout(State state, RandomGenerator random, PlayoutPolicy policy) {
+        if (policy == PlayoutPolicy.TACTICAL) {
+            while (!isTerminal(state)) {
+                if (!performTacticalMove(state, random)) return;
+            }
+        } else {
+            while (!isTerminal(state)) {
+                if (!performRandomMove(state, random)) return;
+            }
+        }
+    }
+
+    /**
+     * Applies a move picked by the tactical playout policy to the given state.
+     * <p>
+     * A move completing four in a row for the player to move is played first,
+     * otherwise a move taking the opponent's winning square, otherwise a uniformly
+     * random valid move. Ties within a group are broken randomly.
+     *
+     * @param state  the current state to modify
+     * @param random the source of randomness used to pick the move
+     * @return {@code true} if a move was applied, {@code false} if there was no valid move
+     */
+    public boolean performTacticalMove(State state, RandomGenerator random) {
+        long validMoveMask = getValidMoveMask(state);
+        if (validMoveMask == 0) return false;
 
-        // Check if there is win on col
-        long colMask = COLUMN_MASKS[colIndex];
-        long extractedCol = playersBitboard & colMask;
-        if (hasFourOnesWithSpacing(extractedCol, 6)) return true;
+        Player player = state.getNextPlayer();
+        Player opponent = player == Player.BLUE ? Player.PINK : Player.BLUE;
+        long emptySquares = ~state.getCombinedBitboard() & BOARD_MASK;
 
-        // Check if there is win on diagonal
-        for (long diagonalMask : DIAGONAL_MASKS) {
-            long extractedDiagonal = playersBitboard & diagonalMask;
-            if (hasFourOnesWithSpacing(extractedDiagonal, 7)) return true;
-        }
+        long candidates = getWinningSquares(state.getBitboard(player), emptySquares) & validMoveMask;
+        if (candidates == 0) candidates = getWinningSquares(state.getBitboard(opponent), emptySquares) & validMoveMask;
+        if (candidates == 0) candidates = validMoveMask;
 
-        // Check if there is win on anti-diagonal
-        for (long antiDiagonalMask : ANTI_DIAGONAL_MASKS) {
-            long extractedAntidiagonal = playersBitboard & antiDiagonalMask;
-            if (hasFourOnesWithSpacing(extractedAntidiagonal, 5)) return true;
+        int square = selectBit(candidates, random.nextInt(Long.bitCount(candidates)));
+        applyMoveUnchecked(state, square);
+        return true;
+    }
+
+    /**
+     * Computes the empty squares that would complete four in a row for the owner of a bitboard.
+     * <p>
+     * For every direction and every position of the missing stone within a line of four,
+     * the other three squares are ANDed together with the bitboard shifted accordingly,
+     * and the result is shifted back onto the missing square. This finds all winning
+     * squares in constant time, without looping over the lines of the board.
+     *
+     * @param bitboard     the stones of a single player
+     * @param emptySquares the squares that are not occupied by any player
+     * @return a bitmask of the empty squares that would complete four in a row
+     */
+    public long getWinningSquares(long bitboard, long emptySquares) {
+        long winningSquares = 0L;
+        for (int i = 0; i < LINE_DIRECTIONS.length; i++) {
+            int direction = LINE_DIRECTIONS[i];
+
+            // Bit s of shifted[k] is set when the square k steps along the line from s is taken
+            long shifted0 = bitboard;
+            long shifted1 = bitboard >>> direction;
+            long shifted2 = bitboard >>> (2 * direction);
+            long shifted3 = bitboard >>> (3 * direction);
+            long starts = LINE_START_MASKS[i];
+
+            winningSquares |= (starts & shifted1 & shifted2 & shifted3 & emptySquares);
+            winningSquares |= (starts & shifted0 & shifted2 & shifted3 & (emptySquares >>> direction)) << direction;
+            winningSquares |= (starts & shifted0 & shifted1 & shifted3 & (emptySquares >>> (2 * direction))) << (2 * direction);
+            winningSquares |= (starts & shifted0 & shifted1 & shifted2 & (emptySquares >>> (3 * direction))) << (3 * direction);
         }
+        return winningSquares;
+    }
+
+    /**
+     * Checks if the {@code player} is winner.
+     * <p>
+     * The winner is determined once, when the winning move is applied, and cached
+     * in the state, so this check is a constant-time lookup. Only positions reached
+     * through {@link #applyMove(State, int)} have that status, stones placed directly
+     * with {@code State.setBitboard} are not checked for a win. To check the stones
+     * themselves use {@link #hasFourInARow(long)}.
+     *
+     * @param state the current game state to evaluate
+     * @param player the player that has made last move
+     * @return {@code true} {@code player} has won, {@code false} otherwise.
+     */
+    public boolean hasWon(State state, Player player) {
+        return state.getWinner() == player;
+    }
 
+    /**
+     * Checks if there are four stones in a row on the given bitboard.
+     * <p>
+     * For every direction the bitboard is ANDed with itself shifted by one and then
+     * by two steps, which leaves a bit set only on squares starting four in a row.
+     * The start mask of the direction removes lines that would wrap around the board.
+     *
+     * @param bitboard the stones of a single player
+     * @return true if the stones contain four in a row, false otherwise
+     */
+    public boolean hasFourInARow(long bitboard) {
+        for (int i = 0; i < LINE_DIRECTIONS.length; i++) {
+            int direction = LINE_DIRECTIONS[i];
+            long pairs = bitboard & (bitboard >>> direction);
+            long fours = pairs & (pairs >>> (2 * direction));
+            if ((fours & LINE_START_MASKS[i]) != 0) return true;
+        }
         return false;
     }
 
     /**
      * Checks if there are 4 `1`s in a long number, each separated by a specified number of spaces.
+     * <p>
+     * The pattern slides over all 64 bits, so lines wrapping around the edge of the
+     * board are matched as well.
      *
      * @param number The long number to check.
      * @param space  The number of spaces (bits) between each `1`.
      * @return true if there are 4 `1`s with the specified spacing, false otherwise.
+     * @deprecated win detection no longer uses it, use {@link #hasFourInARow(long)} on a single player's stones
      */
+    @Deprecated
     public boolean hasFourOnesWithSpacing(long number, int space) {
         // Build the pattern mask for 4 `1`s with the specified spacing
         long pattern = 0b1;
@@ -392,10 +527,14 @@ public class StateHandler {
         return false;
     }
 
-    // TODO: Code bellow can be further optimized, just try not doing same computations more then once (fix later)
-    
+    /**
+     * Checks if the game is over, meaning a player has won or the board is full.
+     *
+     * @param state current state of the game
+     * @return true if no more moves can be played, false otherwise
+     */
     public boolean isTerminal(State state) {
-        return isDraw(state) || hasWon(state, Player.BLUE) || hasWon(state, Player.PINK);
+        return state.isGameOver();
     }
 
     /**
@@ -404,8 +543,7 @@ public class StateHandler {
      * @return true if it is draw, false otherwise
      */
     public boolean isDraw(State state) {
-        int bitCount = Long.bitCount(state.getCombinedBitboard());
-        return !hasWon(state, Player.BLUE) && !hasWon(state, Player.PINK) && bitCount == 48;
+        return state.isGameOver() && state.getWinner() == null;
     }
 
     /**
@@ -0,0 +1,31 @@
+package com.ustavdica.features.state;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of a State.
+ * <p>
+ * The hash of a position is the XOR of one key per placed stone, one key for the
+ * last move and a key for PINK being next to move. The keys come from a fixed seed,
+ * so hashes are the same on every run and can be stored on disk.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x5EEDC0DE4F4D4154L;
+
+    static final long[][] STONE_KEYS = new long[2][49];
+    static final long[] LAST_MOVE_KEYS = new long[49];
+    static final long PINK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] playerKeys : STONE_KEYS) {
+            for (int square = 0; square < 49; square++) playerKeys[square] = random.nextLong();
+        }
+        for (int square = 0; square < 49; square++) LAST_MOVE_KEYS[square] = random.nextLong();
+        PINK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
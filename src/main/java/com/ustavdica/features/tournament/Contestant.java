@@ -0,0 +1,58 @@
+package com.ustavdica.features.tournament;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * An engine configuration taking part in a tournament.
+ * <p>
+ * Every game gets its own search from the factory, so games running in parallel do
+ * not share trees, tables or random generators.
+ *
+ * @param name          the name shown in the tournament output
+ * @param searchFactory creates a configured search for one game
+ * @param iterations    the iteration budget per move
+ * @param timeBudget    the wall-clock budget per move, or null for no time limit
+ */
+public record Contestant(String name, Function<StateHandler, MonteCarloTreeSearch> searchFactory,
+                         int iterations, Duration timeBudget) {
+
+    /**
+     * Creates a contestant with the default search and a fixed number of iterations per move.
+     *
+     * @param name       the name shown in the tournament output
+     * @param iterations the iteration budget per move
+     * @return the contestant
+     */
+    public static Contestant ofIterations(String name, int iterations) {
+        return new Contestant(name, MonteCarloTreeSearch::new, iterations, null);
+    }
+
+    /**
+     * Creates a contestant with the default search and a fixed wall-clock time per move.
+     *
+     * @param name       the name shown in the tournament output
+     * @param timeBudget the wall-clock budget per move
+     * @return the contestant
+     */
+    public static Contestant ofTime(String name, Duration timeBudget) {
+        return new Contestant(name, MonteCarloTreeSearch::new, Integer.MAX_VALUE, timeBudget);
+    }
+
+    /**
+     * Chooses a move within the budget of this contestant.
+     *
+     * @param mcts  the search of this contestant for the current game
+     * @param state the position to move in, it is not modified
+     * @return the chosen move, or -1 if there is no valid move
+     */
+    int chooseMove(MonteCarloTreeSearch mcts, State state) {
+        return timeBudget == null
+                ? mcts.findBestMove(state, iterations)
+                : mcts.findBestMove(state, iterations, timeBudget);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ustavdica.features.tournament;
+
+/**
+ * Result of a game from the perspective of the first contestant of a match.
+ */
+public enum GameResult {
+    WIN,
+    DRAW,
+    LOSS
+}
@@ -0,0 +1,104 @@
+package com.ustavdica.features.tournament;
+
+/**
+ * Wins, draws and losses of the first contestant of a match, with the Elo difference they imply.
+ * <p>
+ * Instances are immutable, {@link #add(GameResult)} returns the updated score.
+ *
+ * @param wins   games won by the first contestant
+ * @param draws  drawn games
+ * @param losses games lost by the first contestant
+ */
+public record Score(int wins, int draws, int losses) {
+
+    // Two-sided 95% quantile of the normal distribution
+    private static final double CONFIDENCE_QUANTILE = 1.959964;
+
+    public static final Score EMPTY = new Score(0, 0, 0);
+
+    /**
+     * Counts one more game.
+     *
+     * @param result the result of the game from the first contestant's perspective
+     * @return the score including the game
+     */
+    public Score add(GameResult result) {
+        return switch (result) {
+            case WIN -> new Score(wins + 1, draws, losses);
+            case DRAW -> new Score(wins, draws + 1, losses);
+            case LOSS -> new Score(wins, draws, losses + 1);
+        };
+    }
+
+    public int games() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Retrieves the share of points scored by the first contestant, a draw counting half a point.
+     *
+     * @return the points per game between 0 and 1, or 0.5 if no game was played
+     */
+    public double points() {
+        return games() == 0 ? 0.5 : (wins + 0.5 * draws) / games();
+    }
+
+    /**
+     * Estimates the Elo difference of the first contestant over the second.
+     *
+     * @return the Elo difference, infinite if one contestant has scored every point
+     */
+    public double elo() {
+        return eloFromPoints(points());
+    }
+
+    /**
+     * Estimates the half-width of the 95% confidence interval of {@link #elo()}.
+     *
+     * @return the error margin in Elo, infinite if it cannot be estimated yet
+     */
+    public double eloErrorMargin() {
+        int games = games();
+
+        // A one-sided score does not bound the difference yet
+        if (games < 2 || wins == games || losses == games) return Double.POSITIVE_INFINITY;
+
+        double standardError = Math.sqrt(variance() / games);
+        double points = points();
+        double upper = eloFromPoints(Math.min(1, points + CONFIDENCE_QUANTILE * standardError));
+        double lower = eloFromPoints(Math.max(0, points - CONFIDENCE_QUANTILE * standardError));
+        return (upper - lower) / 2;
+    }
+
+    /**
+     * Computes the variance of the points of a single game.
+     *
+     * @return the per-game variance of the score
+     */
+    double variance() {
+        int games = games();
+        if (games == 0) return 0;
+
+        double points = points();
+        double winShare = (double) wins / games;
+        double drawShare = (double) draws / games;
+        double lossShare = (double) losses / games;
+        return winShare * Math.pow(1 - points, 2) + drawShare * Math.pow(0.5 - points, 2) + lossShare * Math.pow(points, 2);
+    }
+
+    /**
+     * Converts an Elo difference to the expected points per game of the stronger side.
+     *
+     * @param elo the Elo difference
+     * @return the expected points per game between 0 and 1
+     */
+    static double pointsFromElo(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    static double eloFromPoints(double points) {
+        if (points <= 0) return Double.NEGATIVE_INFINITY;
+        if (points >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / points - 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ustavdica.features.tournament;
+
+/**
+ * Sequential probability ratio test telling whether a match can stop.
+ * <p>
+ * The test weighs the hypothesis that the first contestant is {@code elo0} stronger
+ * against the hypothesis that it is {@code elo1} stronger. After every game the
+ * log-likelihood ratio of the score is compared against bounds derived from the
+ * error rates, using the normal approximation of the per-game points, and the
+ * match ends once either bound is crossed.
+ *
+ * @param elo0  the Elo difference of the null hypothesis
+ * @param elo1  the Elo difference of the alternative hypothesis, greater than elo0
+ * @param alpha the probability of accepting H1 when H0 holds
+ * @param beta  the probability of accepting H0 when H1 holds
+ */
+public record Sprt(double elo0, double elo1, double alpha, double beta) {
+
+    public enum Verdict {
+        ACCEPT_H0,
+        ACCEPT_H1,
+        CONTINUE
+    }
+
+    public Sprt {
+        if (elo1 <= elo0) throw new IllegalArgumentException("elo1 must be greater than elo0");
+        if (alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("Error rates must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Computes the log-likelihood ratio of the score.
+     *
+     * @param score the score of the match so far
+     * @return the log-likelihood ratio of H1 over H0, 0 before the first game
+     */
+    public double llr(Score score) {
+        if (score.games() == 0) return 0;
+
+        double points0 = Score.pointsFromElo(elo0);
+        double points1 = Score.pointsFromElo(elo1);
+
+        // A one-sided score has no variance yet, fall back to that of a drawless game at H0
+        double variance = score.variance();
+        if (variance == 0) variance = points0 * (1 - points0);
+
+        return score.games() * (points1 - points0) * (2 * score.points() - points0 - points1) / (2 * variance);
+    }
+
+    public double lowerBound() {
+        return Math.log(beta / (1 - alpha));
+    }
+
+    public double upperBound() {
+        return Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Decides whether the match can stop.
+     *
+     * @param score the score of the match so far
+     * @return the accepted hypothesis, or {@link Verdict#CONTINUE} if more games are needed
+     */
+    public Verdict verdict(Score score) {
+        double llr = llr(score);
+        if (llr >= upperBound()) return Verdict.ACCEPT_H1;
+        if (llr <= lowerBound()) return Verdict.ACCEPT_H0;
+        return Verdict.CONTINUE;
+    }
+}
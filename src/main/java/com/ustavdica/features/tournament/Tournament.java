@@ -0,0 +1,202 @@
+package com.ustavdica.features.tournament;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays a match between two contestants, running games concurrently.
+ * <p>
+ * Games are played in pairs from the same opening, a few random moves from the empty
+ * board, with the contestants swapping colours, so neither side profits from a lucky
+ * opening or from moving first. A line with the result of each game and the running
+ * score, Elo difference and SPRT log-likelihood ratio is printed as soon as the game
+ * finishes. With an SPRT set, the match stops once the test reaches a verdict.
+ */
+public class Tournament {
+
+    private final StateHandler stateHandler;
+    private final Contestant first;
+    private final Contestant second;
+
+    private int openingPlies = 2;
+    private long seed = 42;
+    private Sprt sprt;
+
+    // Updated by the game threads, guarded by this
+    private Score score = Score.EMPTY;
+    private Sprt.Verdict verdict = Sprt.Verdict.CONTINUE;
+
+    /**
+     * Constructs a Tournament between two contestants.
+     *
+     * @param stateHandler the StateHandler generating and applying moves
+     * @param first        the contestant the score is counted for
+     * @param second       the opponent
+     */
+    public Tournament(StateHandler stateHandler, Contestant first, Contestant second) {
+        this.stateHandler = stateHandler;
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Sets the number of random moves played before the contestants take over.
+     *
+     * @param openingPlies the number of random opening moves, 0 to start every game from the empty board
+     */
+    public void setOpeningPlies(int openingPlies) {
+        this.openingPlies = openingPlies;
+    }
+
+    /**
+     * Sets the seed the random openings are drawn from.
+     *
+     * @param seed the seed of the openings
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Stops the match early once the given test reaches a verdict.
+     *
+     * @param sprt the test to run after every game, or null to play all games
+     */
+    public void setSprt(Sprt sprt) {
+        this.sprt = sprt;
+    }
+
+    /**
+     * Plays the match.
+     *
+     * @param games   the maximum number of games, rounded up to an even number
+     * @param threads the number of games played at the same time
+     * @param out     the stream the progress is printed to, or null for no output
+     * @return the score of the first contestant
+     */
+    public Score play(int games, int threads, PrintStream out) {
+        score = Score.EMPTY;
+        verdict = Sprt.Verdict.CONTINUE;
+
+        int pairs = (games + 1) / 2;
+        SplittableRandom openingSeeds = new SplittableRandom(seed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(pairs * 2);
+            for (int pair = 0; pair < pairs; pair++) {
+                long openingSeed = openingSeeds.nextLong();
+                for (int game = pair * 2; game < pair * 2 + 2; game++) {
+                    boolean firstIsBlue = game % 2 == 0;
+                    int number = game + 1;
+                    futures.add(executor.submit(() -> {
+                        if (isDecided()) return;
+                        GameResult result = playGame(openingSeed, firstIsBlue);
+                        record(number, firstIsBlue, result, out);
+                    }));
+                }
+            }
+
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("One of the games has failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (out != null) printSummary(out);
+        return score;
+    }
+
+    /**
+     * Plays one game between the contestants.
+     *
+     * @param openingSeed the seed of the random opening moves
+     * @param firstIsBlue whether the first contestant plays BLUE, which moves first
+     * @return the result from the first contestant's perspective
+     */
+    GameResult playGame(long openingSeed, boolean firstIsBlue) {
+        State state = new State(Player.BLUE);
+        SplittableRandom random = new SplittableRandom(openingSeed);
+        for (int ply = 0; ply < openingPlies && !stateHandler.isTerminal(state); ply++) {
+            stateHandler.performRandomMove(state, random);
+        }
+
+        MonteCarloTreeSearch firstSearch = first.searchFactory().apply(stateHandler);
+        MonteCarloTreeSearch secondSearch = second.searchFactory().apply(stateHandler);
+
+        while (!stateHandler.isTerminal(state)) {
+            boolean firstToMove = (state.getNextPlayer() == Player.BLUE) == firstIsBlue;
+            int move = firstToMove ? first.chooseMove(firstSearch, state) : second.chooseMove(secondSearch, state);
+
+            // No valid move left, the game ends without a winner
+            if (move < 0 && stateHandler.getValidMoveMask(state) == 0) break;
+
+            if (!stateHandler.applyMove(state, move)) {
+                String name = firstToMove ? first.name() : second.name();
+                throw new IllegalStateException(name + " has chosen the invalid move " + move);
+            }
+        }
+
+        Player winner = state.getWinner();
+        if (winner == null) return GameResult.DRAW;
+        return (winner == Player.BLUE) == firstIsBlue ? GameResult.WIN : GameResult.LOSS;
+    }
+
+    private synchronized boolean isDecided() {
+        return verdict != Sprt.Verdict.CONTINUE;
+    }
+
+    private synchronized void record(int game, boolean firstIsBlue, GameResult result, PrintStream out) {
+        // Games already running when the verdict was reached are not counted
+        if (verdict != Sprt.Verdict.CONTINUE) return;
+
+        score = score.add(result);
+        if (sprt != null) verdict = sprt.verdict(score);
+        if (out == null) return;
+
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "game %5d  %-5s as %-4s %-4s  W %d D %d L %d  Elo %+.1f +/- %.1f",
+                game, first.name(), firstIsBlue ? "BLUE" : "PINK", result.name().toLowerCase(Locale.ROOT),
+                score.wins(), score.draws(), score.losses(), score.elo(), score.eloErrorMargin()));
+        if (sprt != null) {
+            line.append(String.format(Locale.ROOT, "  LLR %.2f [%.2f, %.2f]", sprt.llr(score), sprt.lowerBound(), sprt.upperBound()));
+        }
+        out.println(line);
+        out.flush();
+    }
+
+    private void printSummary(PrintStream out) {
+        out.printf(Locale.ROOT, "%s vs %s: %d games, W %d D %d L %d, points %.1f%%, Elo %+.1f +/- %.1f%n",
+                first.name(), second.name(), score.games(), score.wins(), score.draws(), score.losses(),
+                100 * score.points(), score.elo(), score.eloErrorMargin());
+        if (sprt != null) {
+            out.printf(Locale.ROOT, "SPRT elo0 %.1f elo1 %.1f: %s%n", sprt.elo0(), sprt.elo1(), verdict);
+        }
+        out.flush();
+    }
+
+    // Getters
+    public synchronized Score getScore() {
+        return score;
+    }
+
+    public synchronized Sprt.Verdict getVerdict() {
+        return verdict;
+    }
+}
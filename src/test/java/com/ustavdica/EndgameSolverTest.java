@@ -0,0 +1,82 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.EndgameSolver;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EndgameSolverTest {
+
+    private final StateHandler handler = StateHandler.getInstance();
+
+    @Test
+    void testPlaysImmediateWin() {
+        State state = TestPositions.blueWinsInOne();
+        EndgameSolver solver = new EndgameSolver(handler, 1 << 16);
+
+        assertEquals(TestPositions.BLUE_WINNING_SQUARE, solver.solve(state), "Solver should play the winning move.");
+        assertEquals(EndgameSolver.WIN_SCORE - 1, solver.getScore(), "Winning in one move should have the highest score.");
+    }
+
+    @Test
+    void testGameOverHasNoMove() {
+        State state = TestPositions.blueWinsInOne();
+        assertTrue(handler.applyMove(state, TestPositions.BLUE_WINNING_SQUARE));
+
+        assertEquals(-1, new EndgameSolver(handler, 1 << 16).solve(state), "A finished game should have no move.");
+    }
+
+    @Test
+    void testStopConditionAbortsSolve() {
+        EndgameSolver solver = new EndgameSolver(handler, 1 << 16);
+
+        // The opening is far too deep to solve, so only the stop condition can end the search
+        assertEquals(-1, solver.solve(TestPositions.play(Player.BLUE, 24, 17), () -> true), "A stopped solver should not return a move.");
+        assertEquals(TestPositions.BLUE_WINNING_SQUARE, solver.solve(TestPositions.blueWinsInOne(), () -> false), "A solver that is not stopped should still play the winning move.");
+    }
+
+    @Test
+    void testMatchesFullMinimax() {
+        SplittableRandom random = new SplittableRandom(11);
+        EndgameSolver solver = new EndgameSolver(handler, 1 << 16);
+
+        int solved = 0;
+        while (solved < 40) {
+            State state = new State(Player.BLUE);
+            while (!handler.isTerminal(state) && EndgameSolver.countEmptySquares(state) > 9) {
+                handler.performRandomMove(state, random);
+            }
+            if (handler.isTerminal(state)) continue;
+
+            int move = solver.solve(state);
+            int expected = minimax(state);
+            assertEquals(expected, Integer.signum(solver.getScore()), "Solver score should match a full minimax search.");
+
+            // The chosen move has to keep the outcome of the position
+            State child = new State(state);
+            assertTrue(handler.applyMove(child, move), "Solver should return a valid move.");
+            assertEquals(expected, -minimax(child), "Solver move should reach the best outcome.");
+            solved++;
+        }
+    }
+
+    // Outcome for the player to move, 1 for a win, -1 for a loss and 0 for a draw
+    private int minimax(State state) {
+        if (handler.isTerminal(state)) return handler.isDraw(state) ? 0 : -1;
+
+        int best = -1;
+        for (int move : handler.getAvailableMoves(state)) {
+            State child = new State(state);
+            handler.applyMoveUnchecked(child, move);
+            best = Math.max(best, -minimax(child));
+            if (best == 1) break;
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.ustavdica;
+
+import com.ustavdica.features.engine.EngineProtocol;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.PlayoutPolicy;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineProtocolTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final EngineProtocol engine = new EngineProtocol(StateHandler.getInstance(), new PrintStream(output, true, StandardCharsets.UTF_8));
+
+    private String output() {
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private String awaitBestMove() throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (output().lines().noneMatch(line -> line.startsWith("bestmove"))) {
+            assertTrue(System.nanoTime() < deadline, "The search should end in time.");
+            Thread.sleep(10);
+        }
+        return output().lines().filter(line -> line.startsWith("bestmove")).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testIsReady() {
+        assertTrue(engine.handle("isready"));
+        assertEquals("readyok", output().trim(), "isready should be answered with readyok.");
+        engine.close();
+    }
+
+    @Test
+    void testPositionAppliesMoves() {
+        engine.handle("position pink moves 24 25");
+
+        assertEquals(2, Long.bitCount(engine.getState().getCombinedBitboard()), "Both moves should be played.");
+        assertEquals(Player.PINK, engine.getState().getNextPlayer(), "PINK should be to move after two moves.");
+        engine.close();
+    }
+
+    @Test
+    void testIllegalMoveKeepsPosition() {
+        engine.handle("position startpos moves 24");
+        engine.handle("position startpos moves 24 24");
+
+        assertTrue(output().contains("info string illegal move 24"), "An illegal move should be reported.");
+        assertEquals(1, Long.bitCount(engine.getState().getCombinedBitboard()), "The previous position should be kept.");
+        engine.close();
+    }
+
+    @Test
+    void testGoFindsWinningMove() throws InterruptedException {
+        // The moves of TestPositions.blueWinsInOne()
+        engine.handle("setoption name endgame value 0");
+        engine.handle("position blue moves 8 15 9 16 10 4");
+        engine.handle("go iterations 20000");
+
+        assertEquals("bestmove " + TestPositions.BLUE_WINNING_SQUARE, awaitBestMove(), "The engine should play the winning move.");
+        assertTrue(output().lines().anyMatch(line -> line.startsWith("info time") && line.contains(" nodes ")), "An info line should be printed.");
+        engine.close();
+    }
+
+    @Test
+    void testStopEndsInfiniteSearch() throws InterruptedException {
+        engine.handle("go infinite");
+        engine.handle("stop");
+
+        // stop waits for the search, so the best move is printed by the time it returns
+        assertTrue(output().lines().anyMatch(line -> line.matches("bestmove \\d+")), "Stopping should print the best move found so far.");
+        assertFalse(engine.handle("quit"), "quit should end the session.");
+        engine.close();
+    }
+
+    @Test
+    void testInvalidOptionIsRejected() {
+        engine.handle("setoption name nodes value 10");
+
+        assertEquals("info string invalid value 10 for nodes", output().trim(), "A node budget below the minimum should be rejected.");
+        engine.close();
+    }
+
+    @Test
+    void testPlayoutPolicyOption() {
+        engine.handle("setoption name policy value tactical");
+        assertEquals(PlayoutPolicy.TACTICAL, engine.getPlayoutPolicy(), "The tactical playout policy should be selected.");
+
+        engine.handle("setoption name policy value fast");
+        assertEquals("info string invalid value fast for policy", output().trim(), "An unknown playout policy should be rejected.");
+        assertEquals(PlayoutPolicy.TACTICAL, engine.getPlayoutPolicy(), "The previous playout policy should be kept.");
+        engine.close();
+    }
+
+    @Test
+    void testUnknownCommand() {
+        engine.handle("fly");
+
+        assertEquals("info string unknown command fly", output().trim(), "Unknown commands should be reported.");
+        engine.close();
+    }
+
+}
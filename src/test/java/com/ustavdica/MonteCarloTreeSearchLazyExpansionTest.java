@@ -0,0 +1,61 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchLazyExpansionTest {
+
+    @Test
+    void testExpandCreatesNoChildren() {
+        StateHandler handler = StateHandler.getInstance();
+        State state = new State(Player.BLUE);
+        handler.applyMove(state, 24);
+
+        TreeNode node = new TreeNode(state, null, handler);
+        assertTrue(node.expand(), "First expansion should succeed.");
+        assertFalse(node.expand(), "Second expansion should be refused.");
+        assertFalse(node.hasChildren(), "Expansion should not create any child.");
+        assertTrue(node.hasUntriedMoves(), "Every valid move should be untried.");
+    }
+
+    @Test
+    void testEveryMoveIsTriedOnce() {
+        StateHandler handler = StateHandler.getInstance();
+        State state = new State(Player.BLUE);
+        handler.applyMove(state, 24);
+
+        TreeNode node = new TreeNode(state, null, handler);
+        node.expand();
+
+        SplittableRandom random = new SplittableRandom(3);
+        long triedMoves = 0;
+        TreeNode child;
+        while ((child = node.expandChild(random)) != null) {
+            long move = 1L << child.getState().getLastMove();
+            assertEquals(0, triedMoves & move, "A move should not be tried twice.");
+            triedMoves |= move;
+        }
+
+        assertEquals(handler.getValidMoveMask(state), triedMoves, "Every valid move should have been tried.");
+        assertEquals(Long.bitCount(triedMoves), node.getChildren().size(), "Every tried move should have a child.");
+        assertFalse(node.hasUntriedMoves(), "No move should be left untried.");
+    }
+
+    @Test
+    void testSearchCreatesOneNodePerIteration() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+        mcts.findBestMove(new State(Player.BLUE), 10000);
+
+        long nodesCreated = mcts.getSearchStats().getNodesCreated();
+        assertTrue(nodesCreated < 10000, "At most one node should be created per iteration, was " + nodesCreated + ".");
+    }
+
+}
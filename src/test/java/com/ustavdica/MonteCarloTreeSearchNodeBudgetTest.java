@@ -0,0 +1,125 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.SearchStats;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchNodeBudgetTest {
+
+    private static long countNodes(TreeNode node) {
+        long count = 1;
+        for (TreeNode child : node.getChildren()) count += countNodes(child);
+        return count;
+    }
+
+    @Test
+    void testTreeStaysWithinBudget() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+        mcts.setNodeBudget(5000);
+        mcts.findBestMove(new State(Player.BLUE), 50000);
+
+        SearchStats stats = mcts.getSearchStats();
+        assertTrue(stats.getTreeNodes() <= 5000 + 49, "The tree should stay within the budget, was " + stats.getTreeNodes() + ".");
+        assertEquals(countNodes(mcts.getRoot()), stats.getTreeNodes(), "The node count should match the tree.");
+        assertTrue(stats.getNodesRecycled() > 0, "Nodes should have been recycled.");
+        assertTrue(stats.getEstimatedMemoryBytes() > 0, "The memory used should be estimated.");
+    }
+
+    @Test
+    void testReusedTreeRecyclesRest() {
+        StateHandler handler = StateHandler.getInstance();
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(5));
+        mcts.setNodeBudget(20000);
+
+        State state = new State(Player.BLUE);
+        int move = mcts.findBestMove(state, 5000);
+        long previousTreeNodes = mcts.getSearchStats().getTreeNodes();
+
+        handler.applyMove(state, move);
+        mcts.findBestMove(state, 1);
+
+        SearchStats stats = mcts.getSearchStats();
+        assertTrue(stats.getNodesRecycled() > 0, "The rest of the previous tree should be recycled.");
+        assertEquals(previousTreeNodes, stats.getTreeNodes() + stats.getNodesRecycled(), "Every node should be either kept or recycled.");
+        assertEquals(countNodes(mcts.getRoot()), stats.getTreeNodes(), "The node count should match the reused tree.");
+    }
+
+    @Test
+    void testParallelSearchStopsExpanding() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+            mcts.setThreads(4, executor);
+            mcts.setNodeBudget(2000);
+            mcts.findBestMove(new State(Player.BLUE), 40000);
+
+            long treeNodes = mcts.getSearchStats().getTreeNodes();
+            assertTrue(treeNodes <= 2000 + 4 * 49, "The parallel tree should stop growing at the budget, was " + treeNodes + ".");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testBlocksWithSmallBudget() {
+        List<State> positions = new ArrayList<>();
+        List<Long> solutions = new ArrayList<>();
+        TestPositions.collectBlockPositions(20, positions, solutions);
+
+        // Blocking moves are not proven, so every search runs long enough to be pruned many times over
+        int unlimitedSolved = 0;
+        int budgetSolved = 0;
+        int prunedSearches = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            MonteCarloTreeSearch unlimited = createSearch(0);
+            if (isSolved(unlimited.findBestMove(positions.get(i), 10000), solutions.get(i))) unlimitedSolved++;
+
+            MonteCarloTreeSearch budget = createSearch(1000);
+            if (isSolved(budget.findBestMove(positions.get(i), 10000), solutions.get(i))) budgetSolved++;
+
+            SearchStats stats = budget.getSearchStats();
+            assertTrue(stats.getTreeNodes() <= 1000 + 49, "The tree should stay within the budget, was " + stats.getTreeNodes() + ".");
+            if (stats.getNodesRecycled() > 0) prunedSearches++;
+        }
+
+        assertTrue(prunedSearches >= positions.size() / 2, "Most searches should have been pruned, were " + prunedSearches + ".");
+        assertTrue(budgetSolved >= unlimitedSolved - 2, "A small budget should find about as many blocks, " + budgetSolved + " against " + unlimitedSolved + ".");
+    }
+
+    private static MonteCarloTreeSearch createSearch(int nodeBudget) {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+        mcts.setEndgameThreshold(0);
+        if (nodeBudget > 0) mcts.setNodeBudget(nodeBudget);
+        return mcts;
+    }
+
+    private static boolean isSolved(int move, long solution) {
+        return move >= 0 && (solution & 1L << move) != 0;
+    }
+
+    @Test
+    void testTooSmallBudgetIsRejected() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance());
+
+        boolean rejected = false;
+        try {
+            mcts.setNodeBudget(10);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "A budget below the minimum should be rejected.");
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchParallelTest {
+
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 40000;
+
+    private static MonteCarloTreeSearch searchInParallel(long seed) {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS - 1);
+        try {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(seed));
+            mcts.setThreads(THREADS, executor);
+            mcts.findBestMove(TestPositions.play(Player.BLUE, 24, 17), ITERATIONS);
+            return mcts;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Checks every node of the subtree and returns the number of nodes in it
+    private static long checkSubtree(TreeNode node) {
+        StateHandler handler = StateHandler.getInstance();
+        long validMoveMask = handler.getValidMoveMask(node.getState());
+
+        assertTrue(Math.abs(node.getValue()) <= node.getVisits(), "No virtual loss should be left behind, value "
+                + node.getValue() + " with " + node.getVisits() + " visits.");
+
+        long count = 1;
+        long childVisits = 0;
+        long childMoves = 0;
+        for (TreeNode child : node.getChildren()) {
+            long move = 1L << child.getState().getLastMove();
+            assertEquals(0, childMoves & move, "Every move should get a single child, so every node is expanded once.");
+            assertNotEquals(0, validMoveMask & move, "Every child should be reached by a valid move.");
+            assertEquals(node, child.getParent(), "Every child should point to its parent.");
+            childMoves |= move;
+
+            childVisits += child.getVisits();
+            count += checkSubtree(child);
+        }
+        assertTrue(node.getVisits() >= childVisits, "A node should have at least the visits of its children.");
+        return count;
+    }
+
+    @Test
+    void testRootVisitsMatchChildren() {
+        // Races between the threads depend on timing, so several searches are checked
+        for (long seed = 0; seed < 5; seed++) {
+            MonteCarloTreeSearch mcts = searchInParallel(seed);
+            TreeNode root = mcts.getRoot();
+
+            long childVisits = 0;
+            for (TreeNode child : root.getChildren()) childVisits += child.getVisits();
+
+            assertEquals(childVisits + 1, (long) root.getVisits(), "The root should be simulated once, all other visits go to its children.");
+            assertEquals(mcts.getIterations(), (long) root.getVisits(), "Every iteration should add one visit to the root.");
+        }
+    }
+
+    @Test
+    void testTreeIsConsistent() {
+        for (long seed = 0; seed < 5; seed++) {
+            MonteCarloTreeSearch mcts = searchInParallel(seed);
+
+            long treeNodes = checkSubtree(mcts.getRoot());
+            assertEquals(treeNodes - 1, mcts.getSearchStats().getNodesCreated(), "Every node but the root should be created once.");
+            assertEquals(treeNodes, mcts.getSearchStats().getTreeNodes(), "The live node count should match the tree.");
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchPerspectiveTest {
+
+    // The strong search has the given colour and ten times the iterations of the weak one
+    private static Player playAgainstWeakSearch(Player strongPlayer, long seed) {
+        StateHandler handler = StateHandler.getInstance();
+        MonteCarloTreeSearch strong = new MonteCarloTreeSearch(handler, new SplittableRandom(seed));
+        MonteCarloTreeSearch weak = new MonteCarloTreeSearch(handler, new SplittableRandom(seed + 100));
+
+        State state = new State(Player.BLUE);
+        while (!handler.isTerminal(state)) {
+            int move = state.getNextPlayer() == strongPlayer ? strong.findBestMove(state, 3000) : weak.findBestMove(state, 300);
+            assertTrue(handler.applyMove(state, move), "The search should play a valid move.");
+        }
+        return state.getWinner();
+    }
+
+    @Test
+    void testBlueBeatsWeakerSearch() {
+        int wins = 0;
+        for (long seed = 0; seed < 6; seed++) {
+            if (playAgainstWeakSearch(Player.BLUE, seed) == Player.BLUE) wins++;
+        }
+        assertTrue(wins >= 4, "The search should play for BLUE when BLUE is to move, won " + wins + " of 6.");
+    }
+
+    @Test
+    void testPinkBeatsWeakerSearch() {
+        int wins = 0;
+        for (long seed = 0; seed < 6; seed++) {
+            if (playAgainstWeakSearch(Player.PINK, seed) == Player.PINK) wins++;
+        }
+        assertTrue(wins >= 4, "The search should play for PINK when PINK is to move, won " + wins + " of 6.");
+    }
+
+    @Test
+    void testValuesAreFromMoverPerspective() {
+        StateHandler handler = StateHandler.getInstance();
+        State state = new State(Player.BLUE);
+        for (int square : new int[]{24, 17}) assertTrue(handler.applyMove(state, square));
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(5));
+        mcts.setEndgameThreshold(0);
+        mcts.findBestMove(state, 2000);
+
+        // The root is valued for PINK, who has moved into it, and its children for BLUE,
+        // so their values cancel out except for the first simulation of the root
+        TreeNode root = mcts.getRoot();
+        double childValues = 0;
+        for (TreeNode child : root.getChildren()) childValues += child.getValue();
+        assertEquals(0, root.getValue() + childValues, 1, "The children should be valued from BLUE's perspective.");
+    }
+
+}
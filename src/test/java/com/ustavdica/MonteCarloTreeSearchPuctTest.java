@@ -0,0 +1,96 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.CentralityPrior;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.OpenLinePrior;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchPuctTest {
+
+    private final StateHandler handler = StateHandler.getInstance();
+
+    @Test
+    void testPuctPlaysWinningMove() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(42));
+        mcts.setEndgameThreshold(0);
+        mcts.setPuct(new OpenLinePrior(), 4);
+        mcts.setProgressiveWidening(1, 0.5);
+
+        assertEquals(TestPositions.BLUE_WINNING_SQUARE, mcts.findBestMove(TestPositions.blueWinsInOne(), 2000), "PUCT search should play the winning move.");
+    }
+
+    @Test
+    void testOpenLinePriorFindsMoreBlocks() {
+        List<State> positions = new ArrayList<>();
+        List<Long> solutions = new ArrayList<>();
+        TestPositions.collectBlockPositions(100, positions, solutions);
+
+        // Too few iterations for UCT to try every move, the prior ranks the blocking square first
+        int uctSolved = countSolved(positions, solutions, false);
+        int puctSolved = countSolved(positions, solutions, true);
+
+        assertTrue(puctSolved >= uctSolved + 20, "PUCT with the open line prior should find far more blocks than UCT, "
+                + puctSolved + " against " + uctSolved + ".");
+    }
+
+    @Test
+    void testWideningLimitsRootChildren() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(1));
+        mcts.setPuct(new CentralityPrior(), 4);
+        mcts.setProgressiveWidening(1, 0.5);
+        mcts.findBestMove(new State(Player.BLUE), 400);
+
+        // 400 visits allow at most ceil(sqrt(401)) = 21 children
+        int children = mcts.getRoot().getChildren().size();
+        assertTrue(children <= 21, "Widening should keep the root well below its 49 moves, had " + children + " children.");
+    }
+
+    private int countSolved(List<State> positions, List<Long> solutions, boolean puct) {
+        int solved = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(i));
+            mcts.setEndgameThreshold(0);
+            if (puct) {
+                mcts.setPuct(new OpenLinePrior(), 4);
+                mcts.setProgressiveWidening(1, 0.5);
+            }
+
+            int move = mcts.findBestMove(positions.get(i), 20);
+            if (move >= 0 && (solutions.get(i) & 1L << move) != 0) solved++;
+        }
+        return solved;
+    }
+
+    @Test
+    void testWideningAddsChildrenInPriorOrder() {
+        State state = new State(Player.BLUE);
+        TreeNode node = new TreeNode(state, null, handler);
+
+        assertTrue(node.expand(new CentralityPrior(), 3), "First expansion should succeed.");
+        assertEquals(3, node.getChildren().size(), "Expansion should create only the requested children.");
+        assertEquals(24, node.getChildren().getFirst().getState().getLastMove(), "The center should have the highest centrality prior.");
+
+        assertTrue(node.widen(100), "Widening should add the remaining children.");
+        List<TreeNode> children = node.getChildren();
+        assertEquals(49, children.size(), "Every valid move should have a child after widening.");
+
+        double priorSum = 0;
+        for (int i = 0; i < children.size(); i++) {
+            priorSum += children.get(i).getPrior();
+            if (i > 0) assertTrue(children.get(i - 1).getPrior() >= children.get(i).getPrior(), "Children should be ordered by prior.");
+        }
+        assertEquals(1, priorSum, 1e-9, "Priors should be normalized.");
+        assertFalse(node.widen(100), "Widening a fully widened node should add nothing.");
+    }
+
+}
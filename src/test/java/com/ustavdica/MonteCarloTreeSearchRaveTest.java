@@ -0,0 +1,124 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchRaveTest {
+
+    private final StateHandler handler = StateHandler.getInstance();
+
+    @Test
+    void testRavePlaysWinningMove() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(42));
+        mcts.setEndgameThreshold(0);
+        mcts.setRave(300);
+
+        assertEquals(TestPositions.BLUE_WINNING_SQUARE, mcts.findBestMove(TestPositions.blueWinsInOne(), 2000), "RAVE search should play the winning move.");
+    }
+
+    @Test
+    void testUnvisitedChildIsScoredByAmafMean() {
+        TreeNode root = new TreeNode(TestPositions.play(Player.BLUE, 24, 17), null, handler);
+        root.expand();
+        root.enableAmaf();
+        SplittableRandom random = new SplittableRandom(3);
+        TreeNode visited = root.expandChild(random);
+        TreeNode unvisited = root.expandChild(random);
+
+        root.addVisits(2);
+        visited.incrementVisits();
+
+        // Every playout in which the player took the unvisited child's square was lost
+        for (int i = 0; i < 10; i++) root.addAmaf(1L << unvisited.getState().getLastMove(), -1);
+
+        assertEquals(visited, root.getBestChild(300), "An unvisited child with a losing AMAF mean should not be tried before a visited child.");
+    }
+
+    @Test
+    void testUnvisitedChildrenAreOrderedByAmafMean() {
+        TreeNode root = new TreeNode(TestPositions.play(Player.BLUE, 24, 17), null, handler);
+        root.expand();
+        root.enableAmaf();
+        SplittableRandom random = new SplittableRandom(3);
+        TreeNode worse = root.expandChild(random);
+        TreeNode better = root.expandChild(random);
+
+        root.addVisits(2);
+        for (int i = 0; i < 10; i++) {
+            root.addAmaf(1L << worse.getState().getLastMove(), -0.5);
+            root.addAmaf(1L << better.getState().getLastMove(), 0.5);
+        }
+
+        assertEquals(better, root.getBestChild(300), "The unvisited child with the better AMAF mean should be tried first.");
+    }
+
+    @Test
+    void testUntriedMoveWithBestAmafMeanIsExpandedFirst() {
+        State state = TestPositions.play(Player.BLUE, 24, 17);
+        TreeNode root = new TreeNode(state, null, handler);
+        root.expand();
+        root.enableAmaf();
+
+        long validMoveMask = handler.getValidMoveMask(state);
+        int best = Long.numberOfTrailingZeros(Long.highestOneBit(validMoveMask));
+        for (int i = 0; i < 10; i++) {
+            root.addAmaf(validMoveMask & ~(1L << best), -0.5);
+            root.addAmaf(1L << best, 0.5);
+        }
+
+        TreeNode child = root.expandChild(new SplittableRandom(3));
+        assertEquals(best, child.getState().getLastMove(), "The untried move with the best AMAF mean should be expanded first.");
+    }
+
+    @Test
+    void testUntriedMoveWithoutAmafStatisticsIsExpandedFirst() {
+        State state = TestPositions.play(Player.BLUE, 24, 17);
+        TreeNode root = new TreeNode(state, null, handler);
+        root.expand();
+        root.enableAmaf();
+
+        long validMoveMask = handler.getValidMoveMask(state);
+        int unsampled = Long.numberOfTrailingZeros(validMoveMask);
+        for (int i = 0; i < 10; i++) root.addAmaf(validMoveMask & ~(1L << unsampled), 1);
+
+        TreeNode child = root.expandChild(new SplittableRandom(3));
+        assertEquals(unsampled, child.getState().getLastMove(), "A move without AMAF statistics should be expanded before the others, like an unvisited child without them.");
+    }
+
+    @Test
+    void testRaveFindsMoreBlocks() {
+        List<State> positions = new ArrayList<>();
+        List<Long> solutions = new ArrayList<>();
+        TestPositions.collectBlockPositions(100, positions, solutions);
+
+        // With few iterations the AMAF statistics point at the blocking square before its own visits do
+        int plainSolved = countSolved(positions, solutions, 0);
+        int raveSolved = countSolved(positions, solutions, 100);
+
+        assertTrue(raveSolved > plainSolved, "RAVE should find more blocks than plain UCT, " + raveSolved + " against " + plainSolved + ".");
+    }
+
+    private int countSolved(List<State> positions, List<Long> solutions, double raveEquivalence) {
+        int solved = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(i));
+            mcts.setEndgameThreshold(0);
+            if (raveEquivalence > 0) mcts.setRave(raveEquivalence);
+
+            int move = mcts.findBestMove(positions.get(i), 40);
+            if (move >= 0 && (solutions.get(i) & 1L << move) != 0) solved++;
+        }
+        return solved;
+    }
+
+}
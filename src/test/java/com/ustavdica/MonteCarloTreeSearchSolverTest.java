@@ -0,0 +1,64 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.EndgameSolver;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchSolverTest {
+
+    private final StateHandler handler = StateHandler.getInstance();
+
+    @Test
+    void testProvenWinStopsSearch() {
+        State state = TestPositions.blueWinsInOne();
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(42));
+        mcts.setEndgameThreshold(0);
+
+        assertEquals(TestPositions.BLUE_WINNING_SQUARE, mcts.findBestMove(state, 100000), "Search should play the winning move.");
+        assertTrue(mcts.getRoot().isProvenWin(Player.BLUE), "Root should be proven as a win for BLUE.");
+        assertTrue(mcts.getRoot().getVisits() < 1000, "Search should stop once the root is proven.");
+    }
+
+    @Test
+    void testProvenMovesAgreeWithEndgameSolver() {
+        SplittableRandom random = new SplittableRandom(3);
+        EndgameSolver solver = new EndgameSolver(handler, 1 << 20);
+
+        int proven = 0;
+        for (int position = 0; position < 200 && proven < 10; position++) {
+            State state = new State(Player.BLUE);
+            int stones = 8 + random.nextInt(14);
+            for (int i = 0; i < stones && !handler.isTerminal(state); i++) handler.performRandomMove(state, random);
+            if (handler.isTerminal(state)) continue;
+
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(position));
+            mcts.setEndgameThreshold(0);
+            mcts.setTreeReuse(false);
+
+            Player player = state.getNextPlayer();
+            int move = mcts.findBestMove(state, 20000);
+            if (!mcts.getRoot().isProvenWin(player)) continue;
+            proven++;
+
+            // The move has to keep the win, either right away or against every reply
+            State child = new State(state);
+            assertTrue(handler.applyMove(child, move), "Search should return a valid move.");
+            if (handler.isTerminal(child)) {
+                assertTrue(handler.hasWon(child, player), "A move ending the game should win it.");
+            } else {
+                solver.solve(child);
+                assertTrue(solver.getScore() < 0, "The opponent should be lost after a move proven to win.");
+            }
+        }
+        assertTrue(proven > 0, "Some of the positions should be proven.");
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.SearchStats;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchStatsTest {
+
+    @Test
+    void testStatsCountSearch() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(3));
+        mcts.setTreeReuse(false);
+        int move = mcts.findBestMove(new State(Player.BLUE), 5000);
+
+        SearchStats stats = mcts.getSearchStats();
+        assertFalse(stats.isRunning(), "The search should have ended.");
+        assertEquals(mcts.getIterations(), stats.getIterations(), "The snapshot should count every iteration.");
+        assertTrue(stats.getIterations() > 4000, "Almost the whole budget should be used, was " + stats.getIterations() + ".");
+        assertTrue(stats.getPlayouts() > 0 && stats.getPlayouts() <= stats.getIterations(), "Every iteration plays at most one playout.");
+        assertTrue(stats.getNodesCreated() > 49, "The search should create nodes below the root children.");
+        assertTrue(stats.getMaxDepth() >= 2, "The search should go deeper than the root children.");
+        assertEquals(move, stats.getPrincipalVariation()[0], "The principal variation should start with the best move.");
+        assertEquals(stats.getIterations(), stats.getRootStatistics().getTotalVisits(), 1.0, "The root visits should add up to the iterations.");
+    }
+
+    @Test
+    void testStatsReadableWhileSearching() throws Exception {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(3));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> search = executor.submit(() -> mcts.findBestMove(new State(Player.BLUE), Integer.MAX_VALUE));
+
+            long iterations = 0;
+            for (int attempt = 0; attempt < 500 && iterations == 0; attempt++) {
+                Thread.sleep(10);
+                SearchStats stats = mcts.getSearchStats();
+                if (stats.isRunning()) iterations = stats.getIterations();
+            }
+            assertTrue(iterations > 0, "The running search should report its iterations.");
+
+            mcts.stop();
+            search.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testFlightRecorderEvents() throws IOException {
+        Path path = Files.createTempFile("search", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.ustavdica.SearchStart");
+            recording.enable("com.ustavdica.SearchEnd");
+            recording.start();
+
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(3));
+            int move = mcts.findBestMove(new State(Player.BLUE), 2000);
+
+            recording.stop();
+            recording.dump(path);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+            assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.ustavdica.SearchStart")), "A start event should be recorded.");
+
+            RecordedEvent end = events.stream().filter(event -> event.getEventType().getName().equals("com.ustavdica.SearchEnd")).findFirst().orElseThrow();
+            assertEquals(move, end.getInt("bestMove"), "The end event should hold the best move.");
+            assertEquals(mcts.getIterations(), end.getLong("iterations"), "The end event should hold the iterations.");
+            assertEquals("search", end.getString("source"), "The move should come from the search.");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchStopTest {
+
+    @Test
+    void testStopBeforeSearchHasStarted() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+
+            // The only thread of the executor is busy, so the search cannot start before the stop
+            CountDownLatch busy = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    busy.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            CompletableFuture<Integer> search = mcts.findBestMoveAsync(new State(Player.BLUE), Integer.MAX_VALUE, executor);
+            mcts.stop();
+            busy.countDown();
+
+            int move = search.get(10, TimeUnit.SECONDS);
+            assertEquals(0, mcts.getIterations(), "A search stopped before it has started should not iterate.");
+            assertTrue(move >= 0 && move < 49, "A stopped search should still return a valid move, returned " + move + ".");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testStopRightAfterSubmitting() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+
+            for (int run = 0; run < 20; run++) {
+                CompletableFuture<Integer> search = mcts.findBestMoveAsync(new State(Player.BLUE), Integer.MAX_VALUE, executor);
+                mcts.stop();
+
+                // Without a limit the search only ends when it is stopped
+                search.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testTimeBudgetedSearchReturnsMove() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            StateHandler handler = StateHandler.getInstance();
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(5));
+            State state = TestPositions.play(Player.BLUE, 24, 17);
+
+            int move = mcts.findBestMoveAsync(state, Integer.MAX_VALUE, Duration.ofMillis(100), executor).get(10, TimeUnit.SECONDS);
+            assertNotEquals(0, handler.getValidMoveMask(state) & 1L << move, "The search should return a valid move, returned " + move + ".");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testStopInterruptsEndgameSolver() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            StateHandler handler = StateHandler.getInstance();
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(5));
+            State state = TestPositions.play(Player.BLUE, 24, 17);
+
+            // The solver takes over the whole game, which it cannot solve in any reasonable time
+            mcts.setEndgameThreshold(48);
+
+            CompletableFuture<Integer> search = mcts.findBestMoveAsync(state, Integer.MAX_VALUE, executor);
+            Thread.sleep(200);
+            long stopNanos = System.nanoTime();
+            mcts.stop();
+
+            int move = search.get(10, TimeUnit.SECONDS);
+            long stopMillis = (System.nanoTime() - stopNanos) / 1_000_000;
+            assertTrue(stopMillis < 2000, "The solver should give up soon after the stop, took " + stopMillis + " ms.");
+            assertNotEquals(0, handler.getValidMoveMask(state) & 1L << move, "The stopped search should return a valid move, returned " + move + ".");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLateStopDoesNotCutNextSearchShort() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(5));
+        mcts.findBestMove(new State(Player.BLUE), 1000);
+
+        // The search has ended, so there is nothing to stop
+        mcts.stop();
+
+        mcts.findBestMove(new State(Player.BLUE), 5000);
+        assertTrue(mcts.getIterations() >= 4000, "A stop after a search has ended should not affect the next one, ran "
+                + mcts.getIterations() + " iterations.");
+    }
+
+}
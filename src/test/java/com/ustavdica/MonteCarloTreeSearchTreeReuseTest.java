@@ -0,0 +1,88 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchTreeReuseTest {
+
+    private static TreeNode findChild(TreeNode node, int move) {
+        for (TreeNode child : node.getChildren()) {
+            if (child.getState().getLastMove() == move) return child;
+        }
+        return null;
+    }
+
+    private static TreeNode mostVisitedChild(TreeNode node) {
+        TreeNode best = null;
+        for (TreeNode child : node.getChildren()) {
+            if (best == null || child.getVisits() > best.getVisits()) best = child;
+        }
+        return best;
+    }
+
+    @Test
+    void testGrandchildBecomesRoot() {
+        StateHandler handler = StateHandler.getInstance();
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(7));
+        State state = TestPositions.play(Player.BLUE, 24, 17);
+
+        int ourMove = mcts.findBestMove(state, 20000);
+        TreeNode ourChild = findChild(mcts.getRoot(), ourMove);
+        assertNotNull(ourChild, "The played move should be a child of the root.");
+
+        // The opponent answers with the reply searched the most, so its subtree is worth keeping
+        TreeNode grandchild = mostVisitedChild(ourChild);
+        assertNotNull(grandchild, "The replies to the played move should have been searched.");
+        long grandchildVisits = grandchild.getVisits();
+
+        assertTrue(handler.applyMove(state, ourMove));
+        assertTrue(handler.applyMove(state, grandchild.getState().getLastMove()));
+        mcts.findBestMove(state, 1000);
+
+        assertSame(grandchild, mcts.getRoot(), "The grandchild holding the new position should become the root.");
+        assertNull(mcts.getRoot().getParent(), "The new root should be detached from the previous tree.");
+        assertEquals(grandchildVisits + mcts.getIterations(), (long) mcts.getRoot().getVisits(), "The visits of the grandchild should be kept.");
+    }
+
+    @Test
+    void testUnknownPositionStartsNewTree() {
+        StateHandler handler = StateHandler.getInstance();
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(7));
+        mcts.findBestMove(TestPositions.play(Player.BLUE, 24, 17), 5000);
+        TreeNode previousRoot = mcts.getRoot();
+
+        // Three moves further on is beyond the grandchildren of the previous root
+        State state = TestPositions.play(Player.BLUE, 24, 17, 10, 3, 4);
+        mcts.findBestMove(state, 1000);
+
+        assertNotSame(previousRoot, mcts.getRoot(), "A position outside the previous tree should get a new root.");
+        assertEquals(state, mcts.getRoot().getState(), "The new root should hold the searched position.");
+        assertEquals(mcts.getIterations(), mcts.getRoot().getVisits(), "A new root should only have the visits of this search.");
+    }
+
+    @Test
+    void testDisabledReuseStartsNewTree() {
+        StateHandler handler = StateHandler.getInstance();
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(7));
+        mcts.setTreeReuse(false);
+        State state = TestPositions.play(Player.BLUE, 24, 17);
+
+        int ourMove = mcts.findBestMove(state, 5000);
+        TreeNode ourChild = findChild(mcts.getRoot(), ourMove);
+
+        assertTrue(handler.applyMove(state, ourMove));
+        mcts.findBestMove(state, 1000);
+
+        assertNotSame(ourChild, mcts.getRoot(), "Without tree reuse every search should start from a new root.");
+        assertEquals(mcts.getIterations(), mcts.getRoot().getVisits(), "A new root should only have the visits of this search.");
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.NodePool;
+import com.ustavdica.features.search.PooledMonteCarloTreeSearch;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodePoolTest {
+
+    @Test
+    void testRootHasNoParentAndNoChildren() {
+        NodePool pool = new NodePool(4);
+        int root = pool.allocateRoot();
+
+        assertEquals(0, root, "The first node should get id 0.");
+        assertEquals(NodePool.NONE, pool.getParent(root), "The root should have no parent.");
+        assertEquals(NodePool.NONE, pool.getFirstChild(root), "The root should have no first child.");
+        assertEquals(0, pool.getChildCount(root), "The root should have no children.");
+        assertEquals(1, pool.getSize(), "The pool should hold the root.");
+    }
+
+    @Test
+    void testExpandAllocatesConsecutiveChildren() {
+        // A capacity of 1 forces the arrays to grow during the expansions
+        NodePool pool = new NodePool(1);
+        int root = pool.allocateRoot();
+
+        long moveMask = 1L | 1L << 17 | 1L << 48;
+        int first = pool.expand(root, moveMask);
+
+        assertEquals(first, pool.getFirstChild(root), "The root should point to its first child.");
+        assertEquals(3, pool.getChildCount(root), "One child should be created per set bit.");
+        assertEquals(4, pool.getSize(), "The pool should hold the root and its children.");
+
+        int[] moves = {0, 17, 48};
+        for (int i = 0; i < moves.length; i++) {
+            assertEquals(root, pool.getParent(first + i), "Every child should point to the root.");
+            assertEquals(moves[i], pool.getMove(first + i), "Children should be created in square order.");
+            assertEquals(0, pool.getChildCount(first + i), "A new child should have no children.");
+            assertEquals(0, pool.getVisits(first + i), "A new child should have no visits.");
+        }
+
+        int grandchild = pool.expand(first + 1, 1L << 24);
+        assertEquals(first + 1, pool.getParent(grandchild), "The grandchild should point to its parent.");
+        assertEquals(24, pool.getMove(grandchild), "The grandchild should hold its move.");
+    }
+
+    @Test
+    void testResetStartsOver() {
+        NodePool pool = new NodePool(8);
+        int root = pool.allocateRoot();
+        pool.expand(root, 0b1111L);
+        pool.update(root, 1);
+
+        pool.reset();
+        assertEquals(0, pool.getSize(), "A reset pool should be empty.");
+
+        root = pool.allocateRoot();
+        assertEquals(0, root, "The root of a reset pool should get id 0 again.");
+        assertEquals(0, pool.getVisits(root), "Statistics of a reused node should be cleared.");
+        assertEquals(0.0, pool.getValue(root), "Statistics of a reused node should be cleared.");
+        assertEquals(0, pool.getChildCount(root), "Children of a reused node should be cleared.");
+    }
+
+    @Test
+    void testReplayedStateMatchesPlayedState() {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(9);
+        State start = TestPositions.play(Player.BLUE, 24);
+
+        // Grow a random line of the game in the pool, expanding every valid move on the way
+        NodePool pool = new NodePool(16);
+        State played = new State(start);
+        int node = pool.allocateRoot();
+        while (!handler.isTerminal(played)) {
+            long validMoveMask = handler.getValidMoveMask(played);
+            int child = pool.expand(node, validMoveMask) + random.nextInt(Long.bitCount(validMoveMask));
+            assertTrue(handler.applyMove(played, pool.getMove(child)), "Every child should hold a valid move.");
+            node = child;
+        }
+
+        // Rebuild the final state from the moves on the path back to the root
+        Deque<Integer> moves = new ArrayDeque<>();
+        for (int current = node; pool.getParent(current) != NodePool.NONE; current = pool.getParent(current)) {
+            moves.push(pool.getMove(current));
+        }
+        State replayed = new State(start);
+        for (int move : moves) handler.applyMoveUnchecked(replayed, move);
+
+        assertEquals(played, replayed, "Replaying the moves of the path should rebuild the played state.");
+        assertEquals(played.getHash(), replayed.getHash(), "The replayed state should have the same hash.");
+    }
+
+    @Test
+    void testPooledSearchPlaysValidMove() {
+        StateHandler handler = StateHandler.getInstance();
+        PooledMonteCarloTreeSearch mcts = new PooledMonteCarloTreeSearch(handler, new SplittableRandom(3));
+        State state = TestPositions.play(Player.BLUE, 24, 31, 23);
+
+        int move = mcts.findBestMove(state, 2000);
+        assertNotEquals(0, handler.getValidMoveMask(state) & 1L << move, "The search should return a valid move, returned " + move + ".");
+        assertTrue(mcts.getNodeCount() > 1, "The search should have grown a tree.");
+    }
+
+    @Test
+    void testPooledSearchFindsWinningMove() {
+        PooledMonteCarloTreeSearch mcts = new PooledMonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(3));
+
+        assertEquals(TestPositions.BLUE_WINNING_SQUARE, mcts.findBestMove(TestPositions.blueWinsInOne(), 5000),
+                "The search should find the winning move.");
+    }
+
+}
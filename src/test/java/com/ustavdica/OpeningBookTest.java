@@ -0,0 +1,99 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.MoveStatistics;
+import com.ustavdica.features.search.OpeningBook;
+import com.ustavdica.features.search.OpeningBookBuilder;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    private static OpeningBook buildBook(Path path) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(StateHandler.getInstance(), 5000);
+        builder.setMovesPerPosition(4);
+        builder.add(new State(Player.BLUE), 1, 2);
+        builder.write(path);
+        return OpeningBook.open(path);
+    }
+
+    @Test
+    void testBookHasBuiltPositions() throws IOException {
+        Path path = Files.createTempFile("opening", ".book");
+        try {
+            OpeningBook book = buildBook(path);
+            State start = new State(Player.BLUE);
+
+            // The empty board and the positions after its two best moves
+            assertTrue(book.getEntryCount() > 0 && book.getEntryCount() <= 12, "Every position should keep at most 4 moves.");
+            int move = book.getBestMove(start);
+            assertTrue(move >= 0, "The empty board should be in the book.");
+
+            MoveStatistics statistics = book.getStatistics(start);
+            assertEquals(statistics.getBestMove(), move, "The book move should be the most visited move.");
+
+            State next = new State(start);
+            StateHandler.getInstance().applyMove(next, move);
+            assertTrue(book.getBestMove(next) >= 0, "The position after the best move should be in the book.");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testUnknownPositionIsNotInBook() throws IOException {
+        Path path = Files.createTempFile("opening", ".book");
+        try {
+            OpeningBook book = buildBook(path);
+
+            assertEquals(-1, book.getBestMove(new State(Player.PINK)), "Positions with PINK to move were not built.");
+            assertEquals(0, book.getStatistics(new State(Player.PINK)).getTotalVisits(), "An unknown position should have no statistics.");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testSearchPlaysBookMove() throws IOException {
+        Path path = Files.createTempFile("opening", ".book");
+        try {
+            OpeningBook book = buildBook(path);
+            State start = new State(Player.BLUE);
+
+            MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance());
+            mcts.setOpeningBook(book);
+
+            assertEquals(book.getBestMove(start), mcts.findBestMove(start, 100000), "The search should play the book move.");
+            assertEquals(0, mcts.getIterations(), "A book move should not be searched.");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testInvalidFileIsRejected() throws IOException {
+        Path path = Files.createTempFile("opening", ".book");
+        try {
+            Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+            boolean rejected = false;
+            try {
+                OpeningBook.open(path);
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            assertTrue(rejected, "A file without the book header should be rejected.");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.Perft;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTest {
+
+    private final StateHandler handler = StateHandler.getInstance();
+    private final Perft perft = new Perft(handler, ForkJoinPool.commonPool());
+
+    @Test
+    void testEmptyBoard() {
+        State state = new State(Player.BLUE);
+
+        // Known leaf counts, any change to the move rules changes them
+        long[] expected = {1, 49, 312, 1824, 9984, 52552, 269552, 1350648};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], perft.count(state, depth), "Perft from the empty board at depth " + depth);
+        }
+    }
+
+    @Test
+    void testIslandPosition() {
+        State state = new State(Player.BLUE);
+
+        // PINK closes the corner, so BLUE has to place a non-standard move next to any stone
+        for (int square : new int[]{8, 1, 7, 0}) assertTrue(handler.applyMove(state, square));
+
+        long[] expected = {1, 5, 25, 139, 733, 4027};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], perft.count(state, depth), "Perft from the island position at depth " + depth);
+        }
+    }
+
+    @Test
+    void testCountStopsAtWins() {
+        State state = TestPositions.blueWinsInOne();
+
+        // The winning move ends the game, so it adds a single leaf at every depth
+        long[] expected = {1, 4, 14, 55, 220};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], perft.count(state, depth), "Perft from the winning position at depth " + depth);
+        }
+    }
+
+    @Test
+    void testParallelCountMatchesSequentialCount() {
+        State state = new State(Player.BLUE);
+        for (int square : new int[]{24, 32, 25, 18}) assertTrue(handler.applyMove(state, square));
+
+        for (int depth = 1; depth <= 5; depth++) {
+            assertEquals(perft.count(state, depth), perft.countParallel(state, depth), "Parallel perft at depth " + depth);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.ustavdica;
+
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.search.Ponderer;
+import com.ustavdica.features.search.TreeNode;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PondererTest {
+
+    @Test
+    void testStopEndsPondering() throws InterruptedException {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Ponderer ponderer = new Ponderer(mcts, executor, Integer.MAX_VALUE);
+            ponderer.start(new State(Player.BLUE));
+            Thread.sleep(50);
+
+            assertTrue(ponderer.isPondering(), "Pondering should run until stopped.");
+            ponderer.stop();
+            assertFalse(ponderer.isPondering(), "Stopping should wait for the search to end.");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testStopRightAfterStart() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Ponderer ponderer = new Ponderer(mcts, executor, Integer.MAX_VALUE);
+
+            // Without an iteration limit, stop only returns if it reaches searches that have not started yet
+            for (int run = 0; run < 20; run++) {
+                ponderer.start(new State(Player.BLUE));
+                ponderer.stop();
+                assertFalse(ponderer.isPondering(), "Stopping should end a search that has not started yet.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSearchReusesPonderedSubtree() throws InterruptedException {
+        StateHandler handler = StateHandler.getInstance();
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(handler, new SplittableRandom(1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            State state = new State(Player.BLUE);
+            handler.applyMove(state, 24);
+
+            Ponderer ponderer = new Ponderer(mcts, executor, 20000);
+            ponderer.start(state);
+            Thread.sleep(200);
+            ponderer.stop();
+
+            // The opponent answers with the move pondered the most
+            TreeNode ponderedReply = null;
+            for (TreeNode child : mcts.getRoot().getChildren()) {
+                if (ponderedReply == null || child.getVisits() > ponderedReply.getVisits()) ponderedReply = child;
+            }
+            assertNotNull(ponderedReply, "Pondering should have searched the opponent's replies.");
+            long ponderedVisits = ponderedReply.getVisits();
+
+            handler.applyMove(state, ponderedReply.getState().getLastMove());
+            mcts.findBestMove(state, 100);
+
+            assertEquals(ponderedReply, mcts.getRoot(), "The search should continue from the pondered subtree.");
+            assertTrue(mcts.getRoot().getVisits() > ponderedVisits, "The pondered visits should be kept.");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
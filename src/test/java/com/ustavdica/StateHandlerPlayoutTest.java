@@ -0,0 +1,119 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateHandlerPlayoutTest {
+
+    private static final long BOARD_MASK = (1L << 49) - 1;
+
+    @Test
+    void testSelectBitOfSingleBit() {
+        StateHandler handler = StateHandler.getInstance();
+
+        assertEquals(0, handler.selectBit(1L, 0), "The only set bit of 1 should be bit 0.");
+        assertEquals(48, handler.selectBit(1L << 48, 0), "The only set bit should be the last square.");
+        assertEquals(63, handler.selectBit(Long.MIN_VALUE, 0), "The only set bit should be the sign bit.");
+    }
+
+    @Test
+    void testSelectBitOfFullMask() {
+        StateHandler handler = StateHandler.getInstance();
+
+        for (int n = 0; n < 49; n++) {
+            assertEquals(n, handler.selectBit(BOARD_MASK, n), "Every bit of the board mask is set, so the n-th set bit is bit n.");
+        }
+        assertEquals(63, handler.selectBit(~0L, 63), "The last set bit of a full long should be bit 63.");
+    }
+
+    @Test
+    void testSelectBitOfSparseMask() {
+        StateHandler handler = StateHandler.getInstance();
+        long mask = 1L | 1L << 31 | 1L << 32 | 1L << 48;
+
+        assertEquals(0, handler.selectBit(mask, 0), "The first set bit should be bit 0.");
+        assertEquals(31, handler.selectBit(mask, 1), "The second set bit should be bit 31.");
+        assertEquals(32, handler.selectBit(mask, 2), "The third set bit should be bit 32.");
+        assertEquals(48, handler.selectBit(mask, 3), "The fourth set bit should be bit 48.");
+    }
+
+    @Test
+    void testRandomMoveIsValid() {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(11);
+
+        for (int game = 0; game < 100; game++) {
+            State state = new State(Player.BLUE);
+            while (!handler.isTerminal(state)) {
+                long validMoveMask = handler.getValidMoveMask(state);
+                assertTrue(handler.performRandomMove(state, random), "A move should be played while the game is not over.");
+                assertNotEquals(0, validMoveMask & 1L << state.getLastMove(), "The random move should be a valid move.");
+            }
+        }
+    }
+
+    @Test
+    void testPlayoutEndsInTerminalState() {
+        StateHandler handler = StateHandler.getInstance();
+
+        for (long seed = 0; seed < 200; seed++) {
+            State state = new State(seed % 2 == 0 ? Player.BLUE : Player.PINK);
+            handler.playout(state, new SplittableRandom(seed));
+
+            assertTrue(handler.isTerminal(state), "A playout should end in a terminal state.");
+
+            long blue = state.getBitboard(Player.BLUE);
+            long pink = state.getBitboard(Player.PINK);
+            Player winner = state.getWinner();
+            if (winner == null) {
+                assertTrue(handler.isDraw(state), "A game over without a winner should be a draw.");
+                assertEquals(48, Long.bitCount(blue | pink), "A game is drawn once 48 stones are on the board.");
+                assertFalse(handler.hasFourInARow(blue) || handler.hasFourInARow(pink), "A drawn game should have no four in a row.");
+            } else {
+                Player loser = winner == Player.BLUE ? Player.PINK : Player.BLUE;
+                assertTrue(handler.hasFourInARow(state.getBitboard(winner)), "The winner should have four in a row.");
+                assertFalse(handler.hasFourInARow(state.getBitboard(loser)), "The game should end at the first four in a row.");
+                assertEquals(winner, state.getNextPlayer() == Player.BLUE ? Player.PINK : Player.BLUE, "The winner should have made the last move.");
+            }
+        }
+    }
+
+    @Test
+    void testSeededPlayoutIsReproducible() {
+        StateHandler handler = StateHandler.getInstance();
+
+        State first = new State(Player.BLUE);
+        handler.playout(first, new SplittableRandom(3));
+        State second = new State(Player.BLUE);
+        handler.playout(second, new SplittableRandom(3));
+
+        assertEquals(first, second, "Playouts with the same seed should end in the same state.");
+    }
+
+    @Test
+    void testCopyFromMatchesSource() {
+        StateHandler handler = StateHandler.getInstance();
+        State source = new State(Player.PINK);
+        for (int square : new int[]{24, 25, 32}) assertTrue(handler.applyMove(source, square));
+
+        State copy = new State(Player.BLUE);
+        handler.playout(copy, new SplittableRandom(1));
+        copy.copyFrom(source);
+
+        assertEquals(source, copy, "The copy should describe the same position.");
+        assertEquals(source.getHash(), copy.getHash(), "The copy should have the same hash.");
+        assertFalse(copy.isGameOver(), "The game status should be copied as well.");
+
+        // Playing on the copy must leave the source untouched
+        State before = new State(source);
+        handler.playout(copy, new SplittableRandom(2));
+        assertEquals(before, source, "The copy should not share its bitboards with the source.");
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateHandlerTacticalMoveTest {
+
+    private static final long BOARD_MASK = (1L << 49) - 1;
+
+    private static long squares(int... squares) {
+        long bitboard = 0;
+        for (int square : squares) bitboard |= 1L << square;
+        return bitboard;
+    }
+
+    private static void assertTacticalMove(State position, int expectedMove, String message) {
+        StateHandler handler = StateHandler.getInstance();
+        for (long seed = 0; seed < 50; seed++) {
+            State state = new State(position);
+            assertTrue(handler.performTacticalMove(state, new SplittableRandom(seed)), "A move should be played.");
+            assertEquals(expectedMove, state.getLastMove(), message);
+        }
+    }
+
+    @Test
+    void testWinningSquaresOfLine() {
+        StateHandler handler = StateHandler.getInstance();
+        long empty = BOARD_MASK;
+
+        long stones = squares(8, 9, 10);
+        assertEquals(squares(7, 11), handler.getWinningSquares(stones, empty & ~stones), "Three in a row should be completed on both ends.");
+
+        stones = squares(8, 9, 11);
+        assertEquals(squares(10), handler.getWinningSquares(stones, empty & ~stones), "A gap within the line should be found.");
+
+        stones = squares(8, 9, 10);
+        assertEquals(squares(7), handler.getWinningSquares(stones, empty & ~stones & ~squares(11)), "Occupied squares cannot win.");
+    }
+
+    @Test
+    void testWinningSquaresDoNotWrap() {
+        StateHandler handler = StateHandler.getInstance();
+
+        // 4, 5 and 6 end on the right edge, 7 is the first square of the next row
+        long stones = squares(4, 5, 6);
+        assertEquals(squares(3), handler.getWinningSquares(stones, BOARD_MASK & ~stones), "A line should not be completed across the edge.");
+
+        // The anti-diagonal 16, 22, 28 ends on the left edge, 34 is on the right edge of the same row
+        stones = squares(16, 22, 28);
+        assertEquals(squares(10), handler.getWinningSquares(stones, BOARD_MASK & ~stones), "An anti-diagonal should not be completed across the edge.");
+    }
+
+    @Test
+    void testWinningSquaresMatchScan() {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(29);
+
+        for (int i = 0; i < 2000; i++) {
+            long stones = random.nextLong() & random.nextLong() & BOARD_MASK;
+            long empty = ~stones & random.nextLong() & BOARD_MASK;
+
+            // With four in a row already on the board the scan would count every empty square
+            if (TestPositions.scanFourInARow(stones)) continue;
+
+            long expected = 0;
+            for (int square = 0; square < 49; square++) {
+                long bit = 1L << square;
+                if ((empty & bit) != 0 && TestPositions.scanFourInARow(stones | bit)) expected |= bit;
+            }
+
+            assertEquals(expected, handler.getWinningSquares(stones, empty), "The winning squares should match a scan of every empty square.");
+        }
+    }
+
+    @Test
+    void testTakesWin() {
+        assertTacticalMove(TestPositions.blueWinsInOne(), TestPositions.BLUE_WINNING_SQUARE, "The tactical policy should take the win.");
+    }
+
+    @Test
+    void testBlocksOpponentWin() {
+        // BLUE has 8, 9 and 10, PINK to move can play 3, 4, 11, 17 or 18 and must block on 11
+        State state = TestPositions.play(Player.PINK, 15, 8, 16, 9, 2, 10);
+        assertTacticalMove(state, 11, "The tactical policy should block the opponent's win.");
+    }
+
+    @Test
+    void testPrefersWinOverBlock() {
+        // BLUE has 8, 9 and 10 and wins on 11, PINK has 15, 16 and 17 and threatens 18
+        State state = TestPositions.play(Player.BLUE, 8, 15, 9, 16, 10, 17);
+        assertTacticalMove(state, 11, "The tactical policy should win rather than block.");
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateHandlerWinDetectionTest {
+
+    private static long squares(int... squares) {
+        long bitboard = 0;
+        for (int square : squares) bitboard |= 1L << square;
+        return bitboard;
+    }
+
+    private static void assertWinOnLastMove(Player startingPlayer, int[] moves, String direction) {
+        StateHandler handler = StateHandler.getInstance();
+        State state = TestPositions.play(startingPlayer, Arrays.copyOf(moves, moves.length - 1));
+        assertFalse(state.isGameOver(), "The game should not be over before the " + direction + " line is complete.");
+
+        assertTrue(handler.applyMove(state, moves[moves.length - 1]));
+        assertTrue(handler.hasWon(state, startingPlayer), startingPlayer + " should win with a " + direction + " line.");
+        assertFalse(handler.hasWon(state, startingPlayer == Player.BLUE ? Player.PINK : Player.BLUE), "Only the mover should win.");
+        assertTrue(handler.isTerminal(state), "A win should end the game.");
+        assertFalse(handler.isDraw(state), "A win is not a draw.");
+    }
+
+    @Test
+    void testHorizontalWin() {
+        assertWinOnLastMove(Player.BLUE, new int[]{21, 28, 22, 29, 23, 30, 24}, "horizontal");
+    }
+
+    @Test
+    void testVerticalWin() {
+        assertWinOnLastMove(Player.BLUE, new int[]{3, 4, 10, 11, 17, 18, 24}, "vertical");
+    }
+
+    @Test
+    void testDiagonalWin() {
+        assertWinOnLastMove(Player.PINK, new int[]{0, 1, 8, 9, 16, 17, 24}, "diagonal");
+    }
+
+    @Test
+    void testAntiDiagonalWin() {
+        assertWinOnLastMove(Player.PINK, new int[]{6, 5, 12, 11, 18, 17, 24}, "anti-diagonal");
+    }
+
+    @Test
+    void testNoWinAcrossBoardEdge() {
+        StateHandler handler = StateHandler.getInstance();
+
+        // Each of these is a line for the shift of a direction, but wraps from one row to the next
+        assertFalse(handler.hasFourInARow(squares(5, 6, 7, 8)), "A row should not continue on the next row.");
+        assertFalse(handler.hasFourInARow(squares(12, 13, 14, 15)), "A row should not continue on the next row.");
+        assertFalse(handler.hasFourInARow(squares(5, 13, 21, 29)), "A diagonal should not wrap around the right edge.");
+        assertFalse(handler.hasFourInARow(squares(1, 7, 13, 19)), "An anti-diagonal should not wrap around the left edge.");
+
+        // The same lines kept on the board are wins
+        assertTrue(handler.hasFourInARow(squares(3, 4, 5, 6)), "A row ending on the right edge should win.");
+        assertTrue(handler.hasFourInARow(squares(24, 32, 40, 48)), "A diagonal ending in the corner should win.");
+        assertTrue(handler.hasFourInARow(squares(27, 33, 39, 45)), "An anti-diagonal ending on the bottom edge should win.");
+    }
+
+    @Test
+    void testHasFourInARowMatchesScan() {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(17);
+
+        for (int i = 0; i < 20000; i++) {
+            // Sparse and dense boards, so both outcomes are common
+            long bitboard = random.nextLong() & random.nextLong() & (1L << 49) - 1;
+            if (i % 2 == 0) bitboard |= random.nextLong() & (1L << 49) - 1;
+            assertEquals(TestPositions.scanFourInARow(bitboard), handler.hasFourInARow(bitboard), "Shift-based detection should match a square by square scan.");
+        }
+    }
+
+    @Test
+    void testHasWonMatchesScan() {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(23);
+
+        for (int game = 0; game < 500; game++) {
+            State state = new State(game % 2 == 0 ? Player.BLUE : Player.PINK);
+            while (!handler.isTerminal(state)) {
+                Player mover = state.getNextPlayer();
+                assertTrue(handler.performRandomMove(state, random));
+                assertEquals(TestPositions.scanFourInARow(state.getBitboard(mover)), handler.hasWon(state, mover),
+                        "The cached winner should match a scan of the mover's stones.");
+            }
+        }
+    }
+
+    @Test
+    void testDrawAtFullBoard() {
+        StateHandler handler = StateHandler.getInstance();
+
+        boolean foundDraw = false;
+        for (long seed = 0; seed < 5000 && !foundDraw; seed++) {
+            State state = new State(Player.BLUE);
+            SplittableRandom random = new SplittableRandom(seed);
+            while (!handler.isTerminal(state)) {
+                assertTrue(Long.bitCount(state.getCombinedBitboard()) < 48, "The game should end by 48 stones.");
+                handler.performRandomMove(state, random);
+            }
+            if (state.getWinner() != null) continue;
+
+            foundDraw = true;
+            assertEquals(48, Long.bitCount(state.getCombinedBitboard()), "A game is drawn once 48 stones are on the board.");
+            assertTrue(handler.isDraw(state), "A full board without a winner should be a draw.");
+            assertFalse(handler.hasWon(state, Player.BLUE) || handler.hasWon(state, Player.PINK), "A draw has no winner.");
+            assertFalse(TestPositions.scanFourInARow(state.getBitboard(Player.BLUE)) || TestPositions.scanFourInARow(state.getBitboard(Player.PINK)), "A drawn board should have no four in a row.");
+        }
+        assertTrue(foundDraw, "Some random game should end in a draw.");
+    }
+
+}
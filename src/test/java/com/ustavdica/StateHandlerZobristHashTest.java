@@ -0,0 +1,87 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateHandlerZobristHashTest {
+
+    @Test
+    void testEmptyBoardHash() {
+        State state = new State(Player.BLUE);
+        StateHandler handler = StateHandler.getInstance();
+
+        assertEquals(handler.computeHash(state), state.getHash(), "Hash of an empty board should match a from-scratch computation.");
+    }
+
+    @Test
+    void testStartingPlayerChangesHash() {
+        State blueStarts = new State(Player.BLUE);
+        State pinkStarts = new State(Player.PINK);
+
+        assertNotEquals(blueStarts.getHash(), pinkStarts.getHash(), "The player to move should be part of the hash.");
+    }
+
+    @Test
+    void testIncrementalHashMatchesRecomputation() {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int game = 0; game < 200; game++) {
+            State state = new State(game % 2 == 0 ? Player.BLUE : Player.PINK);
+
+            while (!handler.isTerminal(state) && handler.performRandomMove(state, random)) {
+                assertEquals(handler.computeHash(state), state.getHash(), "Incremental hash should match a from-scratch computation after every move.");
+            }
+        }
+    }
+
+    @Test
+    void testTranspositionsHaveEqualHash() {
+        StateHandler handler = StateHandler.getInstance();
+
+        // Same stones and same last move, reached by two different move orders
+        State first = new State(Player.BLUE);
+        for (int square : new int[]{24, 25, 17, 18}) assertTrue(handler.applyMove(first, square));
+
+        State second = new State(Player.BLUE);
+        for (int square : new int[]{17, 25, 24, 18}) assertTrue(handler.applyMove(second, square));
+
+        assertEquals(first, second, "Both move orders should reach the same position.");
+        assertEquals(first.getHash(), second.getHash(), "Transposed positions should have the same hash.");
+    }
+
+    @Test
+    void testDifferentLastMoveChangesHash() {
+        StateHandler handler = StateHandler.getInstance();
+
+        // Same stones, but the last move (and thus the valid moves) differs
+        State first = new State(Player.BLUE);
+        for (int square : new int[]{24, 25, 17, 18}) assertTrue(handler.applyMove(first, square));
+
+        State second = new State(Player.BLUE);
+        for (int square : new int[]{17, 18, 24, 25}) assertTrue(handler.applyMove(second, square));
+
+        assertNotEquals(first.getHash(), second.getHash(), "The last move should be part of the hash.");
+    }
+
+    @Test
+    void testCopyKeepsHash() {
+        StateHandler handler = StateHandler.getInstance();
+        State state = new State(Player.BLUE);
+        handler.applyMove(state, 24);
+
+        State copy = new State(state);
+        State scratch = new State(Player.PINK);
+        scratch.copyFrom(state);
+
+        assertEquals(state.getHash(), copy.getHash(), "Copy constructor should keep the hash.");
+        assertEquals(state.getHash(), scratch.getHash(), "copyFrom should keep the hash.");
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Positions shared by the tests, every call returns a fresh State.
+ * <p>
+ * Squares are numbered row * 7 + column, and every move has to be next to the previous one.
+ */
+final class TestPositions {
+
+    /**
+     * The only winning move of {@link #blueWinsInOne()}.
+     */
+    static final int BLUE_WINNING_SQUARE = 11;
+
+    private TestPositions() {
+    }
+
+    /**
+     * Plays the given moves on the empty board.
+     *
+     * @throws IllegalArgumentException if one of the moves is not valid
+     */
+    static State play(Player startingPlayer, int... squares) {
+        StateHandler handler = StateHandler.getInstance();
+        State state = new State(startingPlayer);
+        for (int square : squares) {
+            if (!handler.applyMove(state, square)) throw new IllegalArgumentException("Invalid move " + square);
+        }
+        return state;
+    }
+
+    /**
+     * Looks for four in a row square by square, as a reference for the shift-based detection of StateHandler.
+     */
+    static boolean scanFourInARow(long bitboard) {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int row = 0; row < 7; row++) {
+            for (int col = 0; col < 7; col++) {
+                for (int[] direction : directions) {
+                    int length = 0;
+                    while (length < 4) {
+                        int r = row + length * direction[0];
+                        int c = col + length * direction[1];
+                        if (r < 0 || r >= 7 || c < 0 || c >= 7 || (bitboard & 1L << (r * 7 + c)) == 0) break;
+                        length++;
+                    }
+                    if (length == 4) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * BLUE to move with three in a row on 8, 9 and 10. PINK's last stone on 4 leaves
+     * 3, 5, 11 and 12 as valid moves, and only 11 completes the row.
+     */
+    static State blueWinsInOne() {
+        return play(Player.BLUE, 8, 15, 9, 16, 10, 4);
+    }
+
+    /**
+     * Collects positions from seeded random games where PINK cannot win right away,
+     * has more than four valid moves and must block BLUE's only winning square.
+     *
+     * @param count     the number of positions to collect, the same ones on every call
+     * @param positions the list the positions are added to
+     * @param solutions the list the blocking square of every position is added to, as a bitmask
+     */
+    static void collectBlockPositions(int count, List<State> positions, List<Long> solutions) {
+        StateHandler handler = StateHandler.getInstance();
+        SplittableRandom random = new SplittableRandom(7);
+        long boardMask = (1L << 49) - 1;
+
+        int collected = 0;
+        while (collected < count) {
+            State state = new State(Player.BLUE);
+            while (!handler.isTerminal(state) && collected < count) {
+                if (state.getNextPlayer() == Player.PINK) {
+                    long validMoveMask = handler.getValidMoveMask(state);
+                    long emptySquares = ~state.getCombinedBitboard() & boardMask;
+                    long wins = handler.getWinningSquares(state.getBitboard(Player.PINK), emptySquares) & validMoveMask;
+                    long threats = handler.getWinningSquares(state.getBitboard(Player.BLUE), emptySquares);
+
+                    if (wins == 0 && Long.bitCount(threats) == 1 && (threats & validMoveMask) != 0 && Long.bitCount(validMoveMask) > 4) {
+                        positions.add(new State(state));
+                        solutions.add(threats);
+                        collected++;
+                    }
+                }
+                handler.performRandomMove(state, random);
+            }
+        }
+    }
+}
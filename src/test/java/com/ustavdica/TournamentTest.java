@@ -0,0 +1,64 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.StateHandler;
+import com.ustavdica.features.tournament.Contestant;
+import com.ustavdica.features.tournament.GameResult;
+import com.ustavdica.features.tournament.Score;
+import com.ustavdica.features.tournament.Sprt;
+import com.ustavdica.features.tournament.Tournament;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TournamentTest {
+
+    @Test
+    void testEloOfEvenScoreIsZero() {
+        Score score = new Score(10, 5, 10);
+
+        assertEquals(0.0, score.elo(), 1e-9, "An even score should be 0 Elo.");
+        assertEquals(0.5, score.points(), 1e-9, "An even score should be half the points.");
+    }
+
+    @Test
+    void testEloOfThreeQuarterScore() {
+        Score score = Score.EMPTY.add(GameResult.WIN).add(GameResult.WIN).add(GameResult.WIN).add(GameResult.LOSS);
+
+        assertEquals(190.85, score.elo(), 0.01, "Three quarters of the points should be about 191 Elo.");
+    }
+
+    @Test
+    void testSprtVerdicts() {
+        Sprt sprt = new Sprt(0, 50, 0.05, 0.05);
+
+        assertEquals(Sprt.Verdict.CONTINUE, sprt.verdict(new Score(3, 0, 2)), "A few games should not decide the test.");
+        assertEquals(Sprt.Verdict.ACCEPT_H1, sprt.verdict(new Score(300, 100, 100)), "A clearly stronger side should accept H1.");
+        assertEquals(Sprt.Verdict.ACCEPT_H0, sprt.verdict(new Score(100, 100, 300)), "A clearly weaker side should accept H0.");
+    }
+
+    @Test
+    void testStrongerContestantWins() {
+        Tournament tournament = new Tournament(StateHandler.getInstance(),
+                Contestant.ofIterations("strong", 3000),
+                Contestant.ofIterations("weak", 3));
+
+        Score score = tournament.play(8, 4, null);
+
+        assertEquals(8, score.games(), "Every game should be counted.");
+        assertTrue(score.wins() > score.losses(), "The stronger contestant should win more games, was " + score + ".");
+    }
+
+    @Test
+    void testSprtStopsMatchEarly() {
+        Tournament tournament = new Tournament(StateHandler.getInstance(),
+                Contestant.ofIterations("strong", 2000),
+                Contestant.ofIterations("weak", 3));
+        tournament.setSprt(new Sprt(0, 100, 0.1, 0.1));
+
+        Score score = tournament.play(400, 4, null);
+
+        assertEquals(Sprt.Verdict.ACCEPT_H1, tournament.getVerdict(), "The test should accept the stronger contestant.");
+        assertTrue(score.games() < 400, "The match should stop before all games are played.");
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.ustavdica.features.state;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays out several games at once, one game per lane of a {@link LongVector}.
+ * <p>
+ * The state of a game is two bitboards, the outline accumulator and the last move, so
+ * every part of a move runs lane-wise: the valid move mask, picking a random valid
+ * square, placing the stone and checking for four in a row. Games that are over are
+ * masked out, while the others keep playing until every lane is done.
+ * <p>
+ * The outline of a square is computed by shifting its bit in all eight directions
+ * instead of looking it up, and the n-th valid square is selected with a bit expand
+ * of {@code 1 << n} into the valid move mask. Moves are picked uniformly at random,
+ * like {@link StateHandler#performRandomMove(State, java.util.random.RandomGenerator)}.
+ * <p>
+ * Requires the incubating {@code jdk.incubator.vector} module at compile and run time
+ * ({@code --add-modules jdk.incubator.vector}), so it is only compiled by the {@code vector}
+ * build profile and created through {@link BatchPlayout#create}. An engine is not
+ * thread-safe, every searching thread needs its own.
+ */
+public class BatchPlayoutEngine implements BatchPlayout {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    // Number of games played at once, 4 with AVX2 and 8 with AVX-512
+    public static final int LANES = SPECIES.length();
+
+    private static final long BOARD_MASK = StateHandler.BOARD_MASK;
+
+    // Squares of the rightmost (col 0) and the leftmost (col 6) column
+    private static final long FIRST_COLUMN_MASK = 0x0040810204081L;
+    private static final long LAST_COLUMN_MASK = FIRST_COLUMN_MASK << 6;
+
+    private final StateHandler stateHandler;
+
+    // Lane-wise xorshift generator state, never 0 in any lane
+    private LongVector random;
+
+    // Scratch arrays moving games in and out of the lanes
+    private final long[] movers = new long[LANES];
+    private final long[] waiting = new long[LANES];
+    private final long[] outlines = new long[LANES];
+    private final long[] lastMoves = new long[LANES];
+    private final long[] plies = new long[LANES];
+    private final boolean[] active = new boolean[LANES];
+
+    /**
+     * Constructs a BatchPlayoutEngine with its own random generator.
+     *
+     * @param stateHandler the StateHandler used to settle the outcome of the finished games
+     * @param seed         the seed of the lane-wise random generator
+     */
+    public BatchPlayoutEngine(StateHandler stateHandler, long seed) {
+        this.stateHandler = stateHandler;
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] laneSeeds = new long[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            do {
+                laneSeeds[lane] = seeds.nextLong();
+            } while (laneSeeds[lane] == 0);
+        }
+        this.random = LongVector.fromArray(SPECIES, laneSeeds, 0);
+    }
+
+    /**
+     * Plays random moves on the given states until their games are over.
+     * <p>
+     * Behaves like calling {@link StateHandler#playout(State, java.util.random.RandomGenerator)}
+     * on every state, but plays {@link #LANES} of them at a time. The states are modified
+     * in place, including their hash and game status.
+     *
+     * @param states the states to play out
+     * @param count  the number of states, starting from the first, to play out
+     */
+    @Override
+    public void playout(State[] states, int count) {
+        for (int first = 0; first < count; first += LANES) {
+            playoutBatch(states, first, Math.min(LANES, count - first));
+        }
+    }
+
+    private void playoutBatch(State[] states, int first, int games) {
+        for (int lane = 0; lane < LANES; lane++) {
+            State state = lane < games ? states[first + lane] : null;
+            active[lane] = state != null && !state.isGameOver();
+            if (!active[lane]) {
+                movers[lane] = waiting[lane] = outlines[lane] = lastMoves[lane] = 0L;
+                continue;
+            }
+
+            Player player = state.getNextPlayer();
+            movers[lane] = state.getBitboard(player);
+            waiting[lane] = state.getBitboard(opponent(player));
+            outlines[lane] = state.getOutlineAccumulator();
+            lastMoves[lane] = state.getCombinedBitboard() == 0 ? 0L : 1L << state.getLastMove();
+        }
+
+        LongVector mover = LongVector.fromArray(SPECIES, movers, 0);
+        LongVector other = LongVector.fromArray(SPECIES, waiting, 0);
+        LongVector outline = LongVector.fromArray(SPECIES, outlines, 0);
+        LongVector lastMove = LongVector.fromArray(SPECIES, lastMoves, 0);
+        LongVector ply = LongVector.zero(SPECIES);
+        VectorMask<Long> playing = VectorMask.fromArray(SPECIES, active, 0);
+
+        while (playing.anyTrue()) {
+            LongVector combined = mover.or(other);
+
+            // Standard moves around the last move, the island fallback, or any square on an empty board
+            LongVector standardMoves = outline(lastMove).and(combined.not());
+            LongVector validMoves = standardMoves
+                    .blend(combined.lanewise(VectorOperators.XOR, outline), standardMoves.eq(0L))
+                    .blend(BOARD_MASK, combined.eq(0L));
+
+            LongVector moveCount = validMoves.lanewise(VectorOperators.BIT_COUNT);
+            playing = playing.and(moveCount.compare(VectorOperators.NE, 0L));
+
+            // Pick the n-th valid square, with n uniform in [0, moveCount)
+            random = random.lanewise(VectorOperators.XOR, random.lanewise(VectorOperators.LSHL, 13));
+            random = random.lanewise(VectorOperators.XOR, random.lanewise(VectorOperators.LSHR, 7));
+            random = random.lanewise(VectorOperators.XOR, random.lanewise(VectorOperators.LSHL, 17));
+            LongVector n = random.lanewise(VectorOperators.LSHR, 32).mul(moveCount).lanewise(VectorOperators.LSHR, 32);
+            LongVector move = LongVector.broadcast(SPECIES, 1L)
+                    .lanewise(VectorOperators.LSHL, n)
+                    .lanewise(VectorOperators.EXPAND_BITS, validMoves);
+
+            LongVector placed = mover.or(move);
+            VectorMask<Long> finished = hasFourInARow(placed)
+                    .or(placed.or(other).lanewise(VectorOperators.BIT_COUNT).eq(StateHandler.FULL_BOARD_STONES));
+
+            // Only the playing lanes take the move, after which the other player is to move
+            LongVector nextMover = mover.blend(other, playing);
+            other = other.blend(placed, playing);
+            mover = nextMover;
+            outline = outline.blend(outline.or(outline(move)), playing);
+            lastMove = lastMove.blend(move, playing);
+            ply = ply.lanewise(VectorOperators.ADD, 1L, playing);
+
+            playing = playing.andNot(finished);
+        }
+
+        mover.intoArray(movers, 0);
+        other.intoArray(waiting, 0);
+        outline.intoArray(outlines, 0);
+        lastMove.intoArray(lastMoves, 0);
+        ply.intoArray(plies, 0);
+
+        for (int lane = 0; lane < games; lane++) {
+            if (plies[lane] > 0) store(states[first + lane], lane);
+        }
+    }
+
+    /**
+     * Writes the finished game of a lane back into its state.
+     */
+    private void store(State state, int lane) {
+        // Every ply switches the player to move
+        Player player = (plies[lane] & 1) == 0 ? state.getNextPlayer() : opponent(state.getNextPlayer());
+        Player lastPlayer = opponent(player);
+
+        state.setBitboard(player, movers[lane]);
+        state.setBitboard(lastPlayer, waiting[lane]);
+        state.setNextPlayer(player);
+        state.setOutlineAccumulator(outlines[lane]);
+        state.setLastMove(Long.numberOfTrailingZeros(lastMoves[lane]));
+
+        // Only the player who has moved last can have won
+        if (stateHandler.hasFourInARow(waiting[lane])) {
+            state.setStatus(lastPlayer == Player.BLUE ? State.BLUE_WON : State.PINK_WON);
+        } else if (Long.bitCount(movers[lane] | waiting[lane]) == StateHandler.FULL_BOARD_STONES) {
+            state.setStatus(State.DRAW);
+        }
+    }
+
+    /**
+     * Computes the outline of every square set in the given bitboards lane-wise.
+     * <p>
+     * The outline holds the squares themselves and all of their neighbours, the
+     * lane-wise counterpart of the outline masks of StateHandler.
+     */
+    private static LongVector outline(LongVector squares) {
+        LongVector vertical = squares
+                .or(squares.lanewise(VectorOperators.LSHL, 7))
+                .or(squares.lanewise(VectorOperators.LSHR, 7));
+
+        // Shifting by one column wraps around the rows, so the wrapped squares are removed
+        return vertical
+                .or(vertical.lanewise(VectorOperators.LSHL, 1).and(~FIRST_COLUMN_MASK))
+                .or(vertical.lanewise(VectorOperators.LSHR, 1).and(~LAST_COLUMN_MASK))
+                .and(BOARD_MASK);
+    }
+
+    /**
+     * Checks lane-wise if there are four stones in a row, see {@link StateHandler#hasFourInARow(long)}.
+     */
+    private static VectorMask<Long> hasFourInARow(LongVector bitboard) {
+        LongVector fours = LongVector.zero(SPECIES);
+        for (int i = 0; i < StateHandler.LINE_DIRECTIONS.length; i++) {
+            int direction = StateHandler.LINE_DIRECTIONS[i];
+            LongVector pairs = bitboard.and(bitboard.lanewise(VectorOperators.LSHR, direction));
+            fours = fours.or(pairs.and(pairs.lanewise(VectorOperators.LSHR, 2 * direction)).and(StateHandler.LINE_START_MASKS[i]));
+        }
+        return fours.compare(VectorOperators.NE, 0L);
+    }
+
+    private static Player opponent(Player player) {
+        return player == Player.BLUE ? Player.PINK : Player.BLUE;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.state.BatchPlayout;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playouts per second of the lane-wise batch engine against the scalar random playout.
+ * <p>
+ * Each invocation plays out every position of the set once, so the scores are
+ * playouts per second. The batch engine plays the positions one vector width at a time,
+ * the scalar path one after another with {@code performRandomMove}. The batch engine is
+ * only built with the {@code vector} profile, so this benchmark is only built by
+ * {@code mvn -P jmh,vector package}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchPlayoutBenchmark {
+
+    private static final int POSITIONS = BenchmarkPositions.POSITIONS_PER_SET;
+
+    @Param({"EARLY", "MID", "LATE", "ISLAND"})
+    public GamePhase phase;
+
+    private StateHandler stateHandler;
+    private BatchPlayout batchEngine;
+    private State[] positions;
+    private State[] scratch;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        stateHandler = StateHandler.getInstance();
+        batchEngine = BatchPlayout.create(stateHandler, 42);
+        positions = BenchmarkPositions.create(phase);
+        random = new SplittableRandom(42);
+
+        scratch = new State[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) scratch[i] = new State(positions[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void scalarPlayout(Blackhole blackhole) {
+        State state = scratch[0];
+        for (State position : positions) {
+            state.copyFrom(position);
+            while (!stateHandler.isTerminal(state) && stateHandler.performRandomMove(state, random)) {
+                // Play until the game is over
+            }
+            blackhole.consume(state.getWinner());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void batchPlayout(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; i++) scratch[i].copyFrom(positions[i]);
+        batchEngine.playout(scratch, POSITIONS);
+        for (State state : scratch) blackhole.consume(state.getWinner());
+    }
+}
@@ -0,0 +1,67 @@
+package com.ustavdica.benchmarks;
+
+import com.ustavdica.benchmarks.BenchmarkPositions.GamePhase;
+import com.ustavdica.features.search.MonteCarloTreeSearch;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterations and playouts per second of leaf-parallel simulations played lane-wise by the vector batch engine.
+ * <p>
+ * The counterpart of {@code LeafParallelBenchmark} for batched playouts: every iteration
+ * plays {@code playouts} playouts from the expanded leaf on the searching thread. The
+ * score is iterations per second, and the secondary {@code playouts} result is the
+ * number of playouts per second. The batch engine is only built with the {@code vector}
+ * profile, so this benchmark is only built by {@code mvn -P jmh,vector package}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchedLeafParallelBenchmark {
+
+    private static final int ITERATIONS = 5000;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int playouts;
+
+    private State[] positions;
+    private MonteCarloTreeSearch mcts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        positions = BenchmarkPositions.create(GamePhase.EARLY);
+        mcts = new MonteCarloTreeSearch(StateHandler.getInstance(), new SplittableRandom(42));
+        mcts.setTreeReuse(false);
+        mcts.setBatchedPlayouts(playouts);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int findBestMove(PlayoutCounters counters) {
+        State position = positions[next];
+        next = (next + 1) % positions.length;
+
+        int move = mcts.findBestMove(position, ITERATIONS);
+        counters.record(mcts);
+        return move;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ustavdica;
+
+import com.ustavdica.features.state.BatchPlayoutEngine;
+import com.ustavdica.features.state.Player;
+import com.ustavdica.features.state.State;
+import com.ustavdica.features.state.StateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPlayoutEngineTest {
+
+    private final StateHandler handler = StateHandler.getInstance();
+
+    @Test
+    void testFinishedGamesAreConsistent() {
+        SplittableRandom random = new SplittableRandom(5);
+        BatchPlayoutEngine engine = new BatchPlayoutEngine(handler, 5);
+
+        // Not a multiple of the lane count, so the last batch is only partly filled
+        State[] starts = new State[37];
+        State[] states = new State[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = new State(i % 2 == 0 ? Player.BLUE : Player.PINK);
+            int moves = random.nextInt(30);
+            for (int move = 0; move < moves && !handler.isTerminal(starts[i]); move++) {
+                handler.performRandomMove(starts[i], random);
+            }
+            states[i] = new State(starts[i]);
+        }
+
+        engine.playout(states, states.length);
+
+        for (int i = 0; i < states.length; i++) {
+            State start = starts[i];
+            State state = states[i];
+
+            assertTrue(handler.isTerminal(state), "Every game should be played to the end.");
+            assertEquals(handler.computeHash(state), state.getHash(), "The hash should match the final position.");
+            for (Player player : Player.values()) {
+                long startStones = start.getBitboard(player);
+                assertEquals(startStones, state.getBitboard(player) & startStones, "Stones should never be removed.");
+            }
+
+            Player winner = state.getWinner();
+            if (winner != null) {
+                assertTrue(handler.hasFourInARow(state.getBitboard(winner)), "The winner should have four in a row.");
+                assertNotEquals(winner, state.getNextPlayer(), "The winner should have made the last move.");
+            } else {
+                assertEquals(48, Long.bitCount(state.getCombinedBitboard()), "A draw should have a full board.");
+            }
+
+            // Every stone adds its outline, which covers the stone itself
+            long outline = 0L;
+            for (long stones = state.getCombinedBitboard(); stones != 0; stones &= stones - 1) {
+                outline |= outline(Long.numberOfTrailingZeros(stones));
+            }
+            assertEquals(outline, state.getOutlineAccumulator(), "The outline accumulator should cover every stone.");
+            assertNotEquals(0L, state.getCombinedBitboard() & (1L << state.getLastMove()), "The last move should be a taken square.");
+        }
+    }
+
+    @Test
+    void testOutcomesMatchScalarPlayouts() {
+        int games = 20000;
+        BatchPlayoutEngine engine = new BatchPlayoutEngine(handler, 7);
+        SplittableRandom random = new SplittableRandom(7);
+
+        State[] states = new State[64];
+        for (int i = 0; i < states.length; i++) states[i] = new State(Player.BLUE);
+
+        int batchBlueWins = 0;
+        for (int played = 0; played < games; played += states.length) {
+            for (State state : states) state.copyFrom(new State(Player.BLUE));
+            engine.playout(states, states.length);
+            for (State state : states) if (state.getWinner() == Player.BLUE) batchBlueWins++;
+        }
+
+        int scalarBlueWins = 0;
+        State state = new State(Player.BLUE);
+        for (int played = 0; played < games; played++) {
+            state.copyFrom(new State(Player.BLUE));
+            handler.playout(state, random);
+            if (state.getWinner() == Player.BLUE) scalarBlueWins++;
+        }
+
+        // Both sample the same uniformly random games, so the win rates should be close
+        int batchGames = (games + states.length - 1) / states.length * states.length;
+        assertEquals((double) scalarBlueWins / games, (double) batchBlueWins / batchGames, 0.02, "Win rates should match the scalar playouts.");
+    }
+
+    @Test
+    void testFinishedGameIsUnchanged() {
+        State state = TestPositions.blueWinsInOne();
+        assertTrue(handler.applyMove(state, TestPositions.BLUE_WINNING_SQUARE));
+        State copy = new State(state);
+
+        new BatchPlayoutEngine(handler, 1).playout(new State[]{state}, 1);
+
+        assertEquals(copy, state, "A finished game should not be played further.");
+    }
+
+    private static long outline(int square) {
+        int row = square / 7;
+        int column = square % 7;
+
+        long outline = 0L;
+        for (int r = Math.max(0, row - 1); r <= Math.min(6, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(6, column + 1); c++) {
+                outline |= 1L << (r * 7 + c);
+            }
+        }
+        return outline;
+    }
+
+}